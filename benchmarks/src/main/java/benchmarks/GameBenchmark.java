@@ -0,0 +1,73 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChessGame and ChessBoard calls the server makes while arbitrating a move
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private ChessGame middlegame;
+    private ChessGame checkmate;
+    private ChessGame stalemate;
+    private ChessBoard board;
+    private final List<ChessPosition> whitePieces = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        middlegame = ChessGame.fromFen(Positions.MIDDLEGAME);
+        checkmate = ChessGame.fromFen(Positions.CHECKMATE);
+        stalemate = ChessGame.fromFen(Positions.STALEMATE);
+        board = new ChessBoard();
+
+        long pieces = middlegame.getBoard().getPieces(ChessGame.TeamColor.WHITE);
+        while (pieces != 0) {
+            whitePieces.add(Bitboards.position(Long.numberOfTrailingZeros(pieces)));
+            pieces &= pieces - 1;
+        }
+    }
+
+    @Benchmark
+    public void validMovesAllPieces(Blackhole blackhole) {
+        for (ChessPosition position : whitePieces) {
+            blackhole.consume(middlegame.validMoves(position));
+        }
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return middlegame.isInCheck(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInCheckmate() {
+        return checkmate.isInCheckmate(ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public boolean isInStalemate() {
+        return stalemate.isInStalemate(ChessGame.TeamColor.BLACK);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return Evaluation.evaluate(middlegame.getBoard(), ChessGame.TeamColor.WHITE);
+    }
+
+    @Benchmark
+    public ChessBoard resetBoard() {
+        board.resetBoard();
+        return board;
+    }
+}
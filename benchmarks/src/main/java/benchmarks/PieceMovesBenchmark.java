@@ -0,0 +1,39 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pseudo-legal move generation for a single piece of each type
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType pieceType;
+
+    private ChessBoard board;
+    private ChessPosition position;
+    private ChessPiece piece;
+
+    @Setup
+    public void setUp() {
+        board = ChessGame.fromFen(Positions.MIDDLEGAME).getBoard();
+        long pieces = board.getPieces(ChessGame.TeamColor.WHITE, pieceType);
+        position = Bitboards.position(Long.numberOfTrailingZeros(pieces));
+        piece = board.getPiece(position);
+    }
+
+    @Benchmark
+    public Collection<ChessMove> pieceMoves() {
+        return piece.pieceMoves(board, position);
+    }
+}
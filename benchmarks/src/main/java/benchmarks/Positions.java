@@ -0,0 +1,16 @@
+package benchmarks;
+
+/**
+ * FEN positions shared by the benchmarks
+ */
+final class Positions {
+    //A busy middlegame with every piece type in play for both sides
+    static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    //Fool's mate: white to move and checkmated
+    static final String CHECKMATE = "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3";
+    //Black king boxed in by the queen but not in check
+    static final String STALEMATE = "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1";
+
+    private Positions() {
+    }
+}
@@ -39,20 +39,20 @@ public class BoardDisplay {
                     System.out.print(SET_BG_COLOR_GREEN);
                 }
                 else if ((row + col) % 2 == 1) {
-                    if (validEndPositions.contains(new ChessPosition(row, col))) {
+                    if (validEndPositions.contains(ChessPosition.of(row, col))) {
                         System.out.print(SET_BG_COLOR_BRIGHT_CYAN);
                     } else {
                         System.out.print(SET_BG_COLOR_LIGHT_BROWN);
                     }
                 } else {
-                    if (validEndPositions.contains(new ChessPosition(row, col))) {
+                    if (validEndPositions.contains(ChessPosition.of(row, col))) {
                         System.out.print(SET_BG_COLOR_DARK_GREEN);
                     } else {
                         System.out.print(SET_BG_COLOR_BROWN);
                     }
                 }
 
-                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
                 if (piece == null) {
                     System.out.print(EMPTY);
                 } else {
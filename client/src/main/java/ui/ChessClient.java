@@ -208,7 +208,7 @@ public class ChessClient {
             assertParamsNumeric(params[1]);
             int row = Integer.parseInt(params[1]);
             Integer col = convertColumn(params[0]);
-            BoardDisplay.printBoard(currentGame, rootColor == PlayerColor.BLACK, new ChessPosition(row, col));
+            BoardDisplay.printBoard(currentGame, rootColor == PlayerColor.BLACK, ChessPosition.of(row, col));
         } else {
             throw new ResponseException(400, "Expected: <COLUMN> <ROW>, which are the coordinates of " +
                     "the piece whose possible moves you'd like to see.\n");
@@ -222,8 +222,8 @@ public class ChessClient {
             assertParamsNumeric(params[1], params[3]);
             Integer startCol = convertColumn(params[0]);
             Integer endCol = convertColumn(params[2]);
-            ChessPosition startPosition = new ChessPosition(Integer.parseInt(params[1]), startCol);
-            ChessPosition endPosition = new ChessPosition(Integer.parseInt(params[3]), endCol);
+            ChessPosition startPosition = ChessPosition.of(Integer.parseInt(params[1]), startCol);
+            ChessPosition endPosition = ChessPosition.of(Integer.parseInt(params[3]), endCol);
             ChessPiece.PieceType promotionType = getPromotionType(params);
             ChessMove move = new ChessMove(startPosition, endPosition, promotionType);
             ws.makeMove(currentAuth.authToken(), currentGameID, move);
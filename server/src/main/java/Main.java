@@ -4,7 +4,7 @@ import server.Server;
 public class Main {
     public static void main(String[] args) {
         var server = new Server().run(8080);
-        var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        var piece = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess Server: " + piece);
     }
 }
\ No newline at end of file
@@ -4,8 +4,9 @@ import chess.ChessGame;
 import com.google.gson.Gson;
 import model.UserData;
 
-import javax.xml.crypto.Data;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 import static java.sql.Types.NULL;
@@ -14,6 +15,14 @@ public class BaseMySqlDAO {
 
     private static boolean isInitialized = false;
 
+    /**
+     * Turns the current row of a result set into an object. It shouldn't move the cursor or keep the result set.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
     protected BaseMySqlDAO() throws DataAccessException {
         initializeDatabase();
     }
@@ -25,9 +34,10 @@ public class BaseMySqlDAO {
             setParameters(ps, params);
             ps.executeUpdate();
 
-            var rs = ps.getGeneratedKeys();
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (var rs = ps.getGeneratedKeys()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
             return 0;
         } catch (SQLException e) {
@@ -35,12 +45,62 @@ public class BaseMySqlDAO {
         }
     }
 
-    protected ResultSet performQuery(String statement, Object... params) throws DataAccessException {
-        try {
-            Connection conn = DatabaseManager.getConnection();
-            PreparedStatement ps = conn.prepareStatement(statement);
+    /**
+     * Runs one statement for each row of parameters as a single JDBC batch in one transaction, so a bulk insert
+     * takes one round trip per batch instead of one per row, and either every row goes in or none do
+     */
+    protected void performBatchUpdate(String statement, List<Object[]> rows) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                for (Object[] params : rows) {
+                    setParameters(ps, params);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a query and maps every row. The connection, statement and result set are all closed before this returns,
+     * so nothing can leak however the caller uses the results.
+     */
+    protected <T> List<T> queryList(String statement, RowMapper<T> mapper, Object... params)
+            throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
             setParameters(ps, params);
-            return ps.executeQuery();
+            try (ResultSet rs = ps.executeQuery()) {
+                List<T> rows = new ArrayList<>();
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+                return rows;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Same as {@link #queryList} for a query expected to match at most one row
+     *
+     * @return the first row mapped, or null if there are no rows
+     */
+    protected <T> T queryOne(String statement, RowMapper<T> mapper, Object... params) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
+            setParameters(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
@@ -108,6 +168,14 @@ public class BaseMySqlDAO {
         ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
         """,
         """
+        CREATE TABLE IF NOT EXISTS imported_games (
+          `gameID` int NOT NULL AUTO_INCREMENT,
+          `gameName` varchar(256) NOT NULL,
+          `game` JSON NOT NULL,
+          PRIMARY KEY (`gameID`)
+        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci
+        """,
+        """
         CREATE TABLE IF NOT EXISTS auth (
           `authToken` varchar(256) NOT NULL,
           `username` varchar(256) NOT NULL,
@@ -0,0 +1,132 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps recently checked auth tokens in memory in front of another {@link AuthDAO}, so the token check on every
+ * HTTP request and websocket message doesn't have to go to the database.
+ * <p>
+ * Unknown tokens are cached too, for a shorter time, so a client retrying with a bad token doesn't hit the database
+ * each time. Entries expire after their time to live, the least recently used go once the cache is full, and
+ * creating or deleting a token, or clearing, updates the cache straight away. The time to live only matters if
+ * something else changes the auth table, such as another server sharing the database.
+ */
+public class CachingAuthDAO implements AuthDAO {
+    private static final int DEFAULT_MAX_SIZE = 10_000;
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+    private static final long DEFAULT_NEGATIVE_TTL_MILLIS = 5 * 1000;
+
+    private final AuthDAO authDataAccess;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LongSupplier clock;
+    //Guarded by this. In access order, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> entries;
+    //Guarded by this. Bumped whenever a token is created or deleted, so a lookup that raced with it isn't cached
+    private long invalidations;
+
+    //auth is null when the token isn't known
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+
+    public CachingAuthDAO(AuthDAO authDataAccess) {
+        this(authDataAccess, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS);
+    }
+
+    /**
+     * @param maxSize           the most tokens kept, known or unknown
+     * @param ttlMillis         how long a known token is trusted before checking the database again
+     * @param negativeTtlMillis how long an unknown token is remembered as unknown
+     */
+    public CachingAuthDAO(AuthDAO authDataAccess, int maxSize, long ttlMillis, long negativeTtlMillis) {
+        this(authDataAccess, maxSize, ttlMillis, negativeTtlMillis, System::currentTimeMillis);
+    }
+
+    CachingAuthDAO(AuthDAO authDataAccess, int maxSize, long ttlMillis, long negativeTtlMillis, LongSupplier clock) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one token");
+        }
+        this.authDataAccess = authDataAccess;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.clock = clock;
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > CachingAuthDAO.this.maxSize;
+            }
+        };
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try {
+            authDataAccess.clear();
+        } finally {
+            synchronized (this) {
+                entries.clear();
+                invalidations++;
+            }
+        }
+    }
+
+    @Override
+    public AuthData createAuth(AuthData authData) throws DataAccessException {
+        AuthData created = authDataAccess.createAuth(authData);
+        synchronized (this) {
+            entries.put(created.authToken(), new Entry(created, clock.getAsLong() + ttlMillis));
+            invalidations++;
+        }
+        return created;
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return null;
+        }
+        long seen;
+        synchronized (this) {
+            Entry entry = entries.get(authToken);
+            if (entry != null) {
+                if (clock.getAsLong() < entry.expiresAt) {
+                    return entry.auth;
+                }
+                entries.remove(authToken);
+            }
+            seen = invalidations;
+        }
+
+        //Look it up without holding the lock, so one slow query doesn't hold up every other token check
+        AuthData auth = authDataAccess.getAuth(authToken);
+        synchronized (this) {
+            if (invalidations == seen) {
+                long ttl = auth == null ? negativeTtlMillis : ttlMillis;
+                entries.put(authToken, new Entry(auth, clock.getAsLong() + ttl));
+            }
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(AuthData authData) throws DataAccessException {
+        try {
+            authDataAccess.deleteAuth(authData);
+        } finally {
+            synchronized (this) {
+                entries.remove(authData.authToken());
+                invalidations++;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
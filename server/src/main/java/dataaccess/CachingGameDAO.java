@@ -0,0 +1,338 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the games being played in memory in front of another {@link GameDAO}, and writes them back behind the
+ * players, so a move doesn't wait on a SELECT and an UPDATE of the whole game.
+ * <p>
+ * A game is loaded on first use and stays cached until it has been saved and left alone for the idle timeout.
+ * Callers get their own copy of the game from {@link #getGame}, as they would from the database, and
+ * {@link #updateGame} keeps a copy of what it's given, so a caller changing its game afterwards changes nothing
+ * here. Reads and writes of one game are serialized on that game's entry.
+ * <p>
+ * How soon updates reach the database depends on the {@link Durability}. Outside of {@link Durability#SYNC}, one
+ * background thread saves every changed game in a single batch, so several moves in a game between saves cost
+ * one write, and a game that ends is always saved straight away. If a save fails the games stay changed and are
+ * tried again next time. {@link #close()} saves anything still waiting.
+ */
+public class CachingGameDAO implements GameDAO, AutoCloseable {
+    private final GameDAO gameDataAccess;
+    private final Settings settings;
+    private final LongSupplier clock;
+    private final Map<Integer, Entry> games = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    //Held while saving, so clear() can't be undone by a save of games it just threw away
+    private final Object flushLock = new Object();
+
+    /**
+     * When changed games are written to the database
+     */
+    public enum Durability {
+        /**
+         * Before {@link #updateGame} returns, and only cached once saved. Only reads are saved.
+         */
+        SYNC,
+        /**
+         * In the background once a game has this many unsaved updates, and at the flush interval
+         */
+        EVERY_N_MOVES,
+        /**
+         * In the background at the flush interval
+         */
+        INTERVAL
+    }
+
+    /**
+     * @param durability          when changed games are written to the database
+     * @param flushEveryMoves     unsaved updates to a game before it's saved, for {@link Durability#EVERY_N_MOVES}
+     * @param flushIntervalMillis how often changed games are saved in the background
+     * @param idleTimeoutMillis   how long a saved game stays cached after it was last used
+     */
+    public record Settings(Durability durability, int flushEveryMoves, long flushIntervalMillis,
+                           long idleTimeoutMillis) {
+        public Settings {
+            if (flushEveryMoves < 1 || flushIntervalMillis < 1) {
+                throw new IllegalArgumentException("Games must be saved at least every move and every millisecond");
+            }
+        }
+    }
+
+    //Guarded by itself
+    private static final class Entry {
+        GameData data;
+        long version;
+        long savedVersion;
+        int unsavedUpdates;
+        long lastUsed;
+        //Set once the entry has been taken out of the cache, so anyone still holding it looks again
+        boolean removed;
+
+        Entry(GameData data, long lastUsed) {
+            this.data = data;
+            this.lastUsed = lastUsed;
+        }
+
+        boolean isDirty() {
+            return version != savedVersion;
+        }
+    }
+
+    public CachingGameDAO(GameDAO gameDataAccess, Settings settings) {
+        this(gameDataAccess, settings, System::currentTimeMillis);
+    }
+
+    CachingGameDAO(GameDAO gameDataAccess, Settings settings, LongSupplier clock) {
+        this.gameDataAccess = gameDataAccess;
+        this.settings = settings;
+        this.clock = clock;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //Even with nothing to save, as in SYNC mode, this is what drops idle games
+        flusher.scheduleWithFixedDelay(this::flushQuietly, settings.flushIntervalMillis(),
+                settings.flushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        synchronized (flushLock) {
+            for (Entry entry : games.values()) {
+                synchronized (entry) {
+                    entry.removed = true;
+                }
+            }
+            games.clear();
+            gameDataAccess.clear();
+        }
+    }
+
+    @Override
+    public int createGame(GameData newGame) throws Exception {
+        return gameDataAccess.createGame(newGame);
+    }
+
+    @Override
+    public void createGames(List<GameData> newGames) throws Exception {
+        gameDataAccess.createGames(newGames);
+    }
+
+    @Override
+    public GameData getGame(Integer gameID) throws Exception {
+        while (true) {
+            Entry entry = games.get(gameID);
+            if (entry == null) {
+                GameData loaded = gameDataAccess.getGame(gameID);
+                if (loaded == null) {
+                    return null;
+                }
+                Entry fresh = new Entry(copyOf(loaded), clock.getAsLong());
+                entry = games.putIfAbsent(gameID, fresh);
+                if (entry == null) {
+                    return copyOf(fresh.data);
+                }
+            }
+            synchronized (entry) {
+                if (!entry.removed) {
+                    entry.lastUsed = clock.getAsLong();
+                    return copyOf(entry.data);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return every game, with the cached ones as they are now rather than as last saved
+     */
+    @Override
+    public ArrayList<GameData> listGames() throws DataAccessException {
+        ArrayList<GameData> allGames = gameDataAccess.listGames();
+        for (int i = 0; i < allGames.size(); i++) {
+            Entry entry = games.get(allGames.get(i).gameID());
+            if (entry != null) {
+                synchronized (entry) {
+                    if (!entry.removed) {
+                        allGames.set(i, copyOf(entry.data));
+                    }
+                }
+            }
+        }
+        return allGames;
+    }
+
+    @Override
+    public void updateGame(Integer gameID, GameData gameUpdate) throws Exception {
+        GameData stored = copyOf(new GameData(gameID, gameUpdate.whiteUsername(), gameUpdate.blackUsername(),
+                gameUpdate.gameName(), gameUpdate.game()));
+        if (settings.durability() == Durability.SYNC) {
+            updateNow(gameID, stored);
+            return;
+        }
+        boolean flushNow;
+        while (true) {
+            Entry entry = games.computeIfAbsent(gameID, id -> new Entry(stored, clock.getAsLong()));
+            synchronized (entry) {
+                if (entry.removed) {
+                    continue;
+                }
+                entry.data = stored;
+                entry.version++;
+                entry.unsavedUpdates++;
+                entry.lastUsed = clock.getAsLong();
+                flushNow = isFinished(stored) || (settings.durability() == Durability.EVERY_N_MOVES
+                        && entry.unsavedUpdates >= settings.flushEveryMoves());
+            }
+            break;
+        }
+        if (flushNow) {
+            requestFlush();
+        }
+    }
+
+    //Saves first and only caches what was saved, so a rejected update is never served or flushed later
+    private void updateNow(Integer gameID, GameData stored) throws Exception {
+        while (true) {
+            Entry entry = games.get(gameID);
+            if (entry == null) {
+                gameDataAccess.updateGame(gameID, stored);
+                games.putIfAbsent(gameID, new Entry(stored, clock.getAsLong()));
+                return;
+            }
+            synchronized (entry) {
+                if (entry.removed) {
+                    continue;
+                }
+                gameDataAccess.updateGame(gameID, stored);
+                entry.data = stored;
+                entry.version++;
+                entry.savedVersion = entry.version;
+                entry.unsavedUpdates = 0;
+                entry.lastUsed = clock.getAsLong();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void updateGames(List<GameData> gameUpdates) throws Exception {
+        for (GameData gameUpdate : gameUpdates) {
+            updateGame(gameUpdate.gameID(), gameUpdate);
+        }
+    }
+
+    /**
+     * Saves every changed game in one batch, then drops saved games that haven't been used for the idle timeout
+     *
+     * @return how many games were saved
+     * @throws Exception if the batch couldn't be saved. The games stay changed, to be tried again.
+     */
+    public int flush() throws Exception {
+        synchronized (flushLock) {
+            //Snapshot first: the copies in the cache are never changed in place, so the batch can be saved unlocked
+            Map<Entry, Long> versions = new LinkedHashMap<>();
+            List<GameData> batch = new ArrayList<>();
+            for (Entry entry : games.values()) {
+                synchronized (entry) {
+                    if (entry.isDirty() && !entry.removed) {
+                        versions.put(entry, entry.version);
+                        batch.add(entry.data);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                gameDataAccess.updateGames(batch);
+            }
+            for (Map.Entry<Entry, Long> saved : versions.entrySet()) {
+                Entry entry = saved.getKey();
+                synchronized (entry) {
+                    entry.savedVersion = Math.max(entry.savedVersion, saved.getValue());
+                    if (!entry.isDirty()) {
+                        entry.unsavedUpdates = 0;
+                    }
+                }
+            }
+            evictIdle();
+            return batch.size();
+        }
+    }
+
+    /**
+     * @return how many games are cached, saved or not
+     */
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Stops the background saving and saves anything still waiting
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(settings.flushIntervalMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                //Shutting down; close() saves what's left
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            System.out.println("Unable to save cached games, will try again: " + e.getMessage());
+            e.printStackTrace(System.out);
+        }
+    }
+
+    private void evictIdle() {
+        long now = clock.getAsLong();
+        for (Map.Entry<Integer, Entry> cached : games.entrySet()) {
+            Entry entry = cached.getValue();
+            synchronized (entry) {
+                if (!entry.isDirty() && now - entry.lastUsed >= settings.idleTimeoutMillis()) {
+                    entry.removed = true;
+                    games.remove(cached.getKey(), entry);
+                }
+            }
+        }
+    }
+
+    private static boolean isFinished(GameData gameData) {
+        return gameData.game() != null && gameData.game().getGameState() == ChessGame.GameState.FINISHED;
+    }
+
+    private static GameData copyOf(GameData gameData) {
+        ChessGame game = gameData.game() == null ? null : gameData.game().copy();
+        return new GameData(gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(),
+                gameData.gameName(), game);
+    }
+}
@@ -0,0 +1,450 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections, so a DAO call borrows an open connection instead of paying for a TCP connect
+ * and MySQL login every time.
+ * <p>
+ * Callers get a proxy whose {@code close()} hands the connection back rather than closing it, so the usual
+ * try-with-resources code works unchanged. Idle connections are reused most recently used first, checked with
+ * {@link Connection#isValid} if they've been idle a while, and closed once they've been idle too long, down to the
+ * minimum. A connection held longer than the leak threshold is reported once, with where the borrowing thread is
+ * now. Borrowing only notes the time and thread, since capturing a stack trace on every borrow would cost more
+ * than the pool saves.
+ * <p>
+ * With a statement cache size set, each physical connection also keeps its prepared statements open between
+ * borrowings in a {@link StatementCache}.
+ */
+public class ConnectionPool implements AutoCloseable {
+    //A connection used this recently is assumed to still be good, which saves a round trip on busy pools
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 1000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition returned = lock.newCondition();
+    //Guarded by lock. Most recently returned at the head
+    private final ArrayDeque<Idle> idle = new ArrayDeque<>();
+    private final Set<Lease> leased = ConcurrentHashMap.newKeySet();
+    //Keyed by physical connection, which JDBC drivers compare by identity
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+    //Guarded by lock: open physical connections, including ones being created
+    private int total;
+    private int waiting;
+    private boolean closed;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    /**
+     * Opens a new physical connection
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * @param minIdle              connections kept open even when nothing is using them
+     * @param maxSize              the most connections open at once
+     * @param acquireTimeoutMillis how long to wait for a connection when all of them are in use
+     * @param idleTimeoutMillis    how long a connection above the minimum can sit unused before it's closed
+     * @param leakThresholdMillis  how long a connection can be held before it's reported as a leak, or 0 to not check
+     * @param statementCacheSize   prepared statements kept open per connection, or 0 to not cache them
+     */
+    public record Settings(int minIdle, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+                           long leakThresholdMillis, int statementCacheSize) {
+        public Settings {
+            if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+                throw new IllegalArgumentException("Pool sizes must satisfy 0 <= min <= max and max >= 1");
+            }
+            if (statementCacheSize < 0) {
+                throw new IllegalArgumentException("Statement cache size can't be negative");
+            }
+        }
+
+        public Settings(int minIdle, int maxSize, long acquireTimeoutMillis, long idleTimeoutMillis,
+                        long leakThresholdMillis) {
+            this(minIdle, maxSize, acquireTimeoutMillis, idleTimeoutMillis, leakThresholdMillis, 0);
+        }
+    }
+
+    /**
+     * A snapshot of the pool's counters
+     *
+     * @param active          connections currently borrowed
+     * @param idle            connections open and waiting to be borrowed
+     * @param waiting         threads waiting for a connection
+     * @param acquired        connections handed out since the pool started
+     * @param created         physical connections opened
+     * @param timeouts        borrowers that gave up waiting
+     * @param evicted         connections closed for being idle too long or failing validation
+     * @param leaks           connections held past the leak threshold
+     * @param meanWaitMillis  the average time spent getting a connection
+     */
+    public record Metrics(int active, int idle, int waiting, long acquired, long created, long timeouts,
+                          long evicted, long leaks, double meanWaitMillis) {
+    }
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings) {
+        this.factory = factory;
+        this.settings = settings;
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.min(settings.idleTimeoutMillis(), 30_000);
+        if (settings.leakThresholdMillis() > 0) {
+            period = Math.min(period, settings.leakThresholdMillis());
+        }
+        period = Math.max(25, period / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the acquire timeout if they're all in use. Close it to give it back.
+     *
+     * @throws SQLException if no connection came free in time, or a new one couldn't be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MILLISECONDS.toNanos(settings.acquireTimeoutMillis());
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                Idle candidate = idle.pollFirst();
+                if (candidate != null) {
+                    //Validation is a round trip, so don't hold up other borrowers while doing it
+                    lock.unlock();
+                    try {
+                        if (isUsable(candidate)) {
+                            return lease(candidate.connection, start);
+                        }
+                        closeQuietly(candidate.connection);
+                    } finally {
+                        lock.lock();
+                    }
+                    evicted.incrementAndGet();
+                    total--;
+                    continue;
+                }
+                if (total < settings.maxSize()) {
+                    //Count it before opening it so other threads can't go over the maximum meanwhile
+                    total++;
+                    lock.unlock();
+                    boolean opened = false;
+                    try {
+                        Connection connection = open();
+                        opened = true;
+                        return lease(connection, start);
+                    } finally {
+                        lock.lock();
+                        if (!opened) {
+                            total--;
+                            returned.signal();
+                        }
+                    }
+                }
+                if (remaining <= 0) {
+                    timeouts.incrementAndGet();
+                    throw new SQLException(String.format("Timed out after %d ms waiting for a database connection",
+                            settings.acquireTimeoutMillis()));
+                }
+                waiting++;
+                try {
+                    remaining = returned.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted waiting for a database connection", e);
+                } finally {
+                    waiting--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Metrics metrics() {
+        lock.lock();
+        try {
+            long count = acquired.get();
+            return new Metrics(leased.size(), idle.size(), waiting, count, created.get(), timeouts.get(),
+                    evicted.get(), leaks.get(), count == 0 ? 0 : waitNanos.get() / 1e6 / count);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the idle connections and stops handing out new ones. Borrowed connections are closed when returned.
+     */
+    @Override
+    public void close() {
+        housekeeper.shutdownNow();
+        List<Idle> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            total -= toClose.size();
+            returned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Idle entry : toClose) {
+            closeQuietly(entry.connection);
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection connection = factory.create();
+        created.incrementAndGet();
+        return connection;
+    }
+
+    private boolean isUsable(Idle candidate) {
+        try {
+            //isClosed is answered locally, so it's always worth asking
+            if (candidate.connection.isClosed()) {
+                return false;
+            }
+            return System.currentTimeMillis() - candidate.returnedAt < VALIDATE_AFTER_IDLE_MILLIS
+                    || candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lease(Connection connection, long start) {
+        Lease lease = new Lease(connection, System.currentTimeMillis(), Thread.currentThread());
+        leased.add(lease);
+        acquired.incrementAndGet();
+        waitNanos.addAndGet(System.nanoTime() - start);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, lease);
+    }
+
+    private void giveBack(Lease lease) {
+        leased.remove(lease);
+        Connection connection = lease.connection;
+        boolean reusable;
+        try {
+            //Don't let one borrower's unfinished transaction leak into the next borrower's work
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            reusable = !connection.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        lock.lock();
+        try {
+            if (reusable && !closed) {
+                idle.addFirst(new Idle(connection, System.currentTimeMillis()));
+                returned.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        discard(connection);
+    }
+
+    private void discard(Connection connection) {
+        closeQuietly(connection);
+        evicted.incrementAndGet();
+        lock.lock();
+        try {
+            total--;
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Runs on the housekeeper thread: closes stale idle connections, tops up to the minimum and reports leaks
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        List<Connection> stale = new ArrayList<>();
+        int missing;
+        lock.lock();
+        try {
+            //The least recently used are at the tail
+            Iterator<Idle> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && total - stale.size() > settings.minIdle()) {
+                Idle entry = oldestFirst.next();
+                if (now - entry.returnedAt < settings.idleTimeoutMillis()) {
+                    break;
+                }
+                oldestFirst.remove();
+                stale.add(entry.connection);
+            }
+            total -= stale.size();
+            missing = closed ? 0 : Math.max(0, settings.minIdle() - total);
+            total += missing;
+        } finally {
+            lock.unlock();
+        }
+        for (Connection connection : stale) {
+            closeQuietly(connection);
+            evicted.incrementAndGet();
+        }
+        for (int i = 0; i < missing; i++) {
+            try {
+                Connection connection = open();
+                lock.lock();
+                try {
+                    idle.addLast(new Idle(connection, now));
+                    returned.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException | RuntimeException e) {
+                //The database may not be up yet; try again next time round
+                lock.lock();
+                try {
+                    total -= missing - i;
+                } finally {
+                    lock.unlock();
+                }
+                break;
+            }
+        }
+
+        if (settings.leakThresholdMillis() > 0) {
+            for (Lease lease : leased) {
+                if (!lease.reported && now - lease.borrowedAt > settings.leakThresholdMillis()) {
+                    lease.reported = true;
+                    leaks.incrementAndGet();
+                    reportLeak(lease);
+                }
+            }
+        }
+    }
+
+    //The borrower's stack now rather than when it borrowed, which is usually where it's stuck holding on
+    private void reportLeak(Lease lease) {
+        Thread borrower = lease.borrowedBy;
+        System.out.printf("Possible connection leak: held for more than %d ms by thread %s%n",
+                settings.leakThresholdMillis(), borrower.getName());
+        if (!borrower.isAlive()) {
+            System.out.println("\tThe thread has ended without giving the connection back");
+            return;
+        }
+        for (StackTraceElement frame : borrower.getStackTrace()) {
+            System.out.println("\tat " + frame);
+        }
+    }
+
+    private void closeQuietly(Connection connection) {
+        StatementCache statements = statementCaches.remove(connection);
+        if (statements != null) {
+            statements.close();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            //It's being thrown away anyway
+        }
+    }
+
+    private record Idle(Connection connection, long returnedAt) {
+    }
+
+    //One borrowing of a connection, and the proxy handler the borrower talks to
+    private final class Lease implements InvocationHandler {
+        private final Connection connection;
+        private final long borrowedAt;
+        private final Thread borrowedBy;
+        private volatile boolean reported;
+        private boolean returnedToPool;
+
+        Lease(Connection connection, long borrowedAt, Thread borrowedBy) {
+            this.connection = connection;
+            this.borrowedAt = borrowedAt;
+            this.borrowedBy = borrowedBy;
+        }
+
+        private StatementCache statements() {
+            return statementCaches.computeIfAbsent(connection,
+                    physical -> new StatementCache(physical, settings.statementCacheSize()));
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returnedToPool) {
+                        returnedToPool = true;
+                        giveBack(this);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returnedToPool || connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + connection;
+                }
+                default -> {
+                }
+            }
+            if (returnedToPool) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (method.getName().equals("prepareStatement") && settings.statementCacheSize() > 0) {
+                if (args.length == 1) {
+                    return statements().prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                }
+                if (args.length == 2 && args[1] instanceof Integer autoGeneratedKeys) {
+                    return statements().prepare((String) args[0], autoGeneratedKeys);
+                }
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -8,6 +8,9 @@ public class DatabaseManager {
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final Properties DRIVER_PROPERTIES = new Properties();
+    private static final ConnectionPool POOL;
+    private static final CachingGameDAO.Settings GAME_CACHE_SETTINGS;
 
     /*
      * Load the database information for the db.properties file.
@@ -27,6 +30,41 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+
+                /*
+                 * Have Connector/J prepare statements on the server and keep them cached per connection, so repeated
+                 * queries skip MySQL's parse and plan, and send batches as multi-row inserts. Each can be turned off
+                 * with a db.driver.* key, and any other driver property can be set the same way.
+                 */
+                DRIVER_PROPERTIES.setProperty("user", USER);
+                DRIVER_PROPERTIES.setProperty("password", PASSWORD);
+                DRIVER_PROPERTIES.setProperty("useServerPrepStmts", "true");
+                DRIVER_PROPERTIES.setProperty("cachePrepStmts", "true");
+                DRIVER_PROPERTIES.setProperty("prepStmtCacheSize", "250");
+                DRIVER_PROPERTIES.setProperty("prepStmtCacheSqlLimit", "2048");
+                DRIVER_PROPERTIES.setProperty("rewriteBatchedStatements", "true");
+                for (String key : props.stringPropertyNames()) {
+                    if (key.startsWith("db.driver.")) {
+                        DRIVER_PROPERTIES.setProperty(key.substring("db.driver.".length()), props.getProperty(key));
+                    }
+                }
+
+                var poolSettings = new ConnectionPool.Settings(
+                        Integer.parseInt(props.getProperty("db.pool.minIdle", "2")),
+                        Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                        Long.parseLong(props.getProperty("db.pool.acquireTimeoutMillis", "5000")),
+                        Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "600000")),
+                        Long.parseLong(props.getProperty("db.pool.leakThresholdMillis", "30000")),
+                        Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "64")));
+                //Connections are only opened when first needed, since the database may not have been created yet
+                POOL = new ConnectionPool(DatabaseManager::openConnection, poolSettings);
+
+                GAME_CACHE_SETTINGS = new CachingGameDAO.Settings(
+                        CachingGameDAO.Durability.valueOf(props.getProperty("db.gameCache.durability",
+                                "EVERY_N_MOVES").toUpperCase()),
+                        Integer.parseInt(props.getProperty("db.gameCache.flushEveryMoves", "1")),
+                        Long.parseLong(props.getProperty("db.gameCache.flushIntervalMillis", "1000")),
+                        Long.parseLong(props.getProperty("db.gameCache.idleTimeoutMillis", "600000")));
             }
         } catch (Exception ex) {
             throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
@@ -39,8 +77,8 @@ public class DatabaseManager {
     static void createDatabase() throws DataAccessException {
         try {
             var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
+            try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                 var preparedStatement = conn.prepareStatement(statement)) {
                 preparedStatement.executeUpdate();
             }
         } catch (SQLException e) {
@@ -49,9 +87,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
+     * Borrow a connection to the database from the pool, with the catalog set based upon
+     * the properties specified in db.properties. Connections to the database should
+     * be short-lived, and you must close the connection when you are done with it,
+     * which returns it to the pool.
      * The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
@@ -62,11 +101,30 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
-            return conn;
+            return POOL.getConnection();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
+
+    /**
+     * @return how busy the connection pool is and how it has been doing since the server started
+     */
+    public static ConnectionPool.Metrics getPoolMetrics() {
+        return POOL.metrics();
+    }
+
+    /**
+     * @return when games cached by {@link CachingGameDAO} should be written back, from the db.gameCache keys.
+     * By default each update is saved in the background straight after it's made.
+     */
+    public static CachingGameDAO.Settings getGameCacheSettings() {
+        return GAME_CACHE_SETTINGS;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, DRIVER_PROPERTIES);
+        conn.setCatalog(DATABASE_NAME);
+        return conn;
+    }
 }
@@ -3,15 +3,26 @@ package dataaccess;
 import model.GameData;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public interface GameDAO {
     void clear() throws DataAccessException;
 
     int createGame(GameData newGame) throws Exception;
 
+    /**
+     * Adds many games at once, all or none. The games' IDs are ignored and new ones assigned.
+     */
+    void createGames(List<GameData> newGames) throws Exception;
+
     GameData getGame(Integer gameID) throws Exception;
 
     ArrayList<GameData> listGames() throws DataAccessException;
 
     void updateGame(Integer gameID, GameData gameUpdate) throws Exception;
+
+    /**
+     * Saves many games at once, all or none, for writing back cached games. Each game is saved under its own ID.
+     */
+    void updateGames(List<GameData> gameUpdates) throws Exception;
 }
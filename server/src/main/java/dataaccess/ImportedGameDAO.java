@@ -0,0 +1,22 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.util.List;
+
+/**
+ * Historical games loaded in bulk, e.g. for an opening explorer. They're kept apart from the games played here, so
+ * they never show up in the lobby and nobody can take a seat in one.
+ */
+public interface ImportedGameDAO {
+    void clear() throws DataAccessException;
+
+    /**
+     * Adds many games at once, all or none. The games' IDs and usernames are ignored; new IDs are assigned.
+     */
+    void createGames(List<GameData> newGames) throws Exception;
+
+    GameData getGame(Integer gameID) throws Exception;
+
+    int countGames() throws DataAccessException;
+}
@@ -4,6 +4,7 @@ import model.GameData;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 public class MemoryGameDAO implements GameDAO {
     private final HashMap<Integer, GameData> games = new HashMap<>();
@@ -23,6 +24,15 @@ public class MemoryGameDAO implements GameDAO {
         return gameID;
     }
 
+    @Override
+    public synchronized void createGames(List<GameData> newGames) {
+        for (GameData newGame : newGames) {
+            int gameID = games.size() + 1;
+            games.put(gameID, new GameData(gameID, newGame.whiteUsername(), newGame.blackUsername(),
+                    newGame.gameName(), newGame.game()));
+        }
+    }
+
     @Override
     public GameData getGame(Integer gameID) throws Exception {
         return games.get(gameID);
@@ -42,4 +52,11 @@ public class MemoryGameDAO implements GameDAO {
         games.remove(gameID);
         games.put(gameID, gameUpdate);
     }
+
+    @Override
+    public synchronized void updateGames(List<GameData> gameUpdates) {
+        for (GameData gameUpdate : gameUpdates) {
+            games.put(gameUpdate.gameID(), gameUpdate);
+        }
+    }
 }
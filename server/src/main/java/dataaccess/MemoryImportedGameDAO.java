@@ -0,0 +1,33 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.util.HashMap;
+import java.util.List;
+
+public class MemoryImportedGameDAO implements ImportedGameDAO {
+    private final HashMap<Integer, GameData> games = new HashMap<>();
+
+    @Override
+    public synchronized void clear() {
+        games.clear();
+    }
+
+    @Override
+    public synchronized void createGames(List<GameData> newGames) {
+        for (GameData newGame : newGames) {
+            int gameID = games.size() + 1;
+            games.put(gameID, new GameData(gameID, null, null, newGame.gameName(), newGame.game()));
+        }
+    }
+
+    @Override
+    public synchronized GameData getGame(Integer gameID) {
+        return games.get(gameID);
+    }
+
+    @Override
+    public synchronized int countGames() {
+        return games.size();
+    }
+}
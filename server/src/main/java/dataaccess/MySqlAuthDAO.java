@@ -3,9 +3,6 @@ package dataaccess;
 import com.google.gson.Gson;
 import model.AuthData;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
 public class MySqlAuthDAO extends BaseMySqlDAO implements AuthDAO{
     public MySqlAuthDAO() throws DataAccessException {
         super();
@@ -27,16 +24,7 @@ public class MySqlAuthDAO extends BaseMySqlDAO implements AuthDAO{
     @Override
     public AuthData getAuth(String authToken) throws DataAccessException {
         var statement = "SELECT authToken, username FROM auth where authToken=?";
-        try (ResultSet rs = performQuery(statement, authToken)) {
-            if (rs.next()) {
-                var storedAuthToken = rs.getString("authToken");
-                var storedUsername = rs.getString("username");
-                return new AuthData(storedAuthToken, storedUsername);
-            }
-        } catch (DataAccessException | SQLException e) {
-            throw new DataAccessException(e.getMessage());
-        }
-        return null;
+        return queryOne(statement, rs -> new AuthData(rs.getString("authToken"), rs.getString("username")), authToken);
     }
 
     @Override
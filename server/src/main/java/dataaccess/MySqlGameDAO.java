@@ -7,6 +7,7 @@ import model.GameData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 
 public class MySqlGameDAO extends BaseMySqlDAO implements GameDAO {
     public MySqlGameDAO() throws DataAccessException {
@@ -29,35 +30,27 @@ public class MySqlGameDAO extends BaseMySqlDAO implements GameDAO {
         return performUpdate(statement, newGame.whiteUsername(), newGame.blackUsername(), newGame.gameName(), json);
     }
 
+    @Override
+    public void createGames(List<GameData> newGames) throws Exception {
+        var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, game) VALUES (?, ?, ?, ?)";
+        List<Object[]> rows = new ArrayList<>(newGames.size());
+        for (GameData newGame : newGames) {
+            rows.add(new Object[] {newGame.whiteUsername(), newGame.blackUsername(), newGame.gameName(),
+                    new Gson().toJson(newGame.game())});
+        }
+        performBatchUpdate(statement, rows);
+    }
+
     @Override
     public GameData getGame(Integer gameID) throws Exception {
         var statement = "SELECT * FROM games WHERE gameID=?";
-        try (var rs = performQuery(statement, gameID)) {
-            if (rs.next()) {
-                return readGame(rs);
-            }
-        } catch (Exception e) {
-            throw new DataAccessException(e.getMessage());
-        }
-        return null;
+        return queryOne(statement, MySqlGameDAO::readGame, gameID);
     }
 
     @Override
     public ArrayList<GameData> listGames() throws DataAccessException {
-        var result = new ArrayList<GameData>();
-        try (var conn = DatabaseManager.getConnection()) {
-            var statement = "SELECT * FROM games";
-            try (var ps = conn.prepareStatement(statement)) {
-                try (var rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        result.add(readGame(rs));
-                    }
-                }
-            }
-        } catch (Exception e) {
-            throw new DataAccessException(e.getMessage());
-        }
-        return result;
+        var statement = "SELECT * FROM games";
+        return new ArrayList<>(queryList(statement, MySqlGameDAO::readGame));
     }
 
     @Override
@@ -67,22 +60,20 @@ public class MySqlGameDAO extends BaseMySqlDAO implements GameDAO {
         performUpdate(statement, gameUpdate.whiteUsername(), gameUpdate.blackUsername(), gameUpdate.gameName(), json, gameID);
     }
 
-    protected GameData readGame(ResultSet rs) throws DataAccessException {
-        String json;
-        int gameID;
-        String whiteUsername;
-        String blackUsername;
-        String gameName;
-        try {
-            gameID = rs.getInt("gameID");
-            whiteUsername = rs.getString("whiteUsername");
-            blackUsername = rs.getString("blackUsername");
-            gameName = rs.getString("gameName");
-            json = rs.getString("game");
-        } catch (SQLException e) {
-            throw new DataAccessException(e.getMessage());
+    @Override
+    public void updateGames(List<GameData> gameUpdates) throws Exception {
+        var statement = "UPDATE games SET whiteUsername=?, blackUsername=?, gameName=?, game=? WHERE gameID=?";
+        List<Object[]> rows = new ArrayList<>(gameUpdates.size());
+        for (GameData gameUpdate : gameUpdates) {
+            rows.add(new Object[] {gameUpdate.whiteUsername(), gameUpdate.blackUsername(), gameUpdate.gameName(),
+                    new Gson().toJson(gameUpdate.game()), gameUpdate.gameID()});
         }
-        ChessGame game = new Gson().fromJson(json, ChessGame.class);
-        return new GameData(gameID, whiteUsername, blackUsername, gameName, game);
+        performBatchUpdate(statement, rows);
+    }
+
+    protected static GameData readGame(ResultSet rs) throws SQLException {
+        ChessGame game = new Gson().fromJson(rs.getString("game"), ChessGame.class);
+        return new GameData(rs.getInt("gameID"), rs.getString("whiteUsername"), rs.getString("blackUsername"),
+                rs.getString("gameName"), game);
     }
 }
@@ -0,0 +1,49 @@
+package dataaccess;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import model.GameData;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MySqlImportedGameDAO extends BaseMySqlDAO implements ImportedGameDAO {
+    public MySqlImportedGameDAO() throws DataAccessException {
+        super();
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        var statement = "TRUNCATE imported_games";
+        super.performUpdate(statement);
+    }
+
+    @Override
+    public void createGames(List<GameData> newGames) throws Exception {
+        var statement = "INSERT INTO imported_games (gameName, game) VALUES (?, ?)";
+        List<Object[]> rows = new ArrayList<>(newGames.size());
+        for (GameData newGame : newGames) {
+            rows.add(new Object[] {newGame.gameName(), new Gson().toJson(newGame.game())});
+        }
+        performBatchUpdate(statement, rows);
+    }
+
+    @Override
+    public GameData getGame(Integer gameID) throws Exception {
+        var statement = "SELECT gameID, gameName, game FROM imported_games WHERE gameID=?";
+        return queryOne(statement, MySqlImportedGameDAO::readGame, gameID);
+    }
+
+    @Override
+    public int countGames() throws DataAccessException {
+        var statement = "SELECT COUNT(*) FROM imported_games";
+        return queryOne(statement, rs -> rs.getInt(1));
+    }
+
+    private static GameData readGame(ResultSet rs) throws SQLException {
+        ChessGame game = new Gson().fromJson(rs.getString("game"), ChessGame.class);
+        return new GameData(rs.getInt("gameID"), null, null, rs.getString("gameName"), game);
+    }
+}
@@ -4,9 +4,6 @@ import com.google.gson.Gson;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
 public class MySqlUserDAO extends BaseMySqlDAO implements UserDAO {
     public MySqlUserDAO() throws DataAccessException {
         super();
@@ -28,16 +25,7 @@ public class MySqlUserDAO extends BaseMySqlDAO implements UserDAO {
     @Override
     public UserData getUser(String username) throws DataAccessException {
         var statement = "SELECT username, password, email FROM users WHERE username=?";
-        try (ResultSet rs = performQuery(statement, username)){
-            if (rs.next()) {
-                var storedUsername = rs.getString("username");
-                var storedPassword = rs.getString("password");
-                var storedEmail = rs.getString("email");
-                return new UserData(storedUsername, storedPassword, storedEmail);
-            }
-        } catch (DataAccessException | SQLException e) {
-            throw new DataAccessException(e.getMessage());
-        }
-        return null;
+        return queryOne(statement, rs -> new UserData(rs.getString("username"), rs.getString("password"),
+                rs.getString("email")), username);
     }
 }
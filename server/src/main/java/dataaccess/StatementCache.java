@@ -0,0 +1,145 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The prepared statements of one physical connection, kept open between borrowings so the DAOs' hot queries are
+ * only parsed and planned by MySQL once per connection.
+ * <p>
+ * Like {@link ConnectionPool}, it hands out proxies whose {@code close()} puts the statement back rather than
+ * closing it. A statement is taken out of the cache while it's in use, so preparing the same SQL twice at once just
+ * gets a second statement. The least recently used statements are closed once there are more than the capacity.
+ * <p>
+ * Only the borrower of the connection uses its cache, so it isn't thread safe.
+ */
+final class StatementCache {
+    private final Connection connection;
+    private final int capacity;
+    //Least recently returned first
+    private final LinkedHashMap<Key, PreparedStatement> statements = new LinkedHashMap<>();
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.capacity = capacity;
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement statement = statements.remove(key);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, new Checkout(key, statement));
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes every cached statement, for when the connection itself is being closed
+     */
+    void close() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private void giveBack(Key key, PreparedStatement statement) {
+        try {
+            if (statement.isClosed()) {
+                return;
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+        } catch (SQLException e) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = statements.put(key, statement);
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+        if (statements.size() > capacity) {
+            List<PreparedStatement> evicted = new ArrayList<>();
+            Iterator<Map.Entry<Key, PreparedStatement>> oldestFirst = statements.entrySet().iterator();
+            while (statements.size() > capacity) {
+                evicted.add(oldestFirst.next().getValue());
+                oldestFirst.remove();
+            }
+            evicted.forEach(StatementCache::closeQuietly);
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            //It's being thrown away anyway
+        }
+    }
+
+    //One use of a cached statement, and the proxy handler the caller talks to
+    private final class Checkout implements InvocationHandler {
+        private final Key key;
+        private final PreparedStatement statement;
+        private boolean returned;
+
+        Checkout(Key key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        giveBack(key, statement);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || statement.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Cached " + statement;
+                }
+                default -> {
+                }
+            }
+            if (returned) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
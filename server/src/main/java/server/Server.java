@@ -20,17 +20,22 @@ public class Server {
     {
         try {
             userDataAccess = new MySqlUserDAO();
-            authDataAccess = new MySqlAuthDAO();
-            gameDataAccess = new MySqlGameDAO();
+            //Every request checks its token, so keep them in memory rather than asking MySQL each time
+            authDataAccess = new CachingAuthDAO(new MySqlAuthDAO());
+            //Games being played are kept in memory and saved behind the moves
+            gameDataAccess = new CachingGameDAO(new MySqlGameDAO(), DatabaseManager.getGameCacheSettings());
         } catch (DataAccessException e) {
             throw new RuntimeException(e.getMessage());
         }
     }
 
-    private final WebSocketHandler webSocketHandler = new WebSocketHandler(authDataAccess, gameDataAccess);
+    private final EngineService engineService = new EngineService();
+    private final GameLocks gameLocks = new GameLocks();
+    private final WebSocketHandler webSocketHandler = new WebSocketHandler(authDataAccess, gameDataAccess, engineService,
+            gameLocks);
     private final ClearService clearService = new ClearService(userDataAccess, authDataAccess, gameDataAccess);
     private final UserService userService = new UserService(authDataAccess, userDataAccess);
-    private final GameService gameService = new GameService(gameDataAccess, authDataAccess);
+    private final GameService gameService = new GameService(gameDataAccess, authDataAccess, gameLocks);
     private final Gson serializer = new Gson();
 
     public int run(int desiredPort) {
@@ -47,6 +52,7 @@ public class Server {
         Spark.get("/game", this::listGames);
         Spark.post("/game", this::createGame);
         Spark.put("/game", this::joinGame);
+        Spark.put("/game/engine", this::addEngine);
         Spark.delete("/db", this::clearDatabase);
         Spark.exception(Exception.class, this::exceptionHandler);
 
@@ -98,6 +104,14 @@ public class Server {
         return "";
     }
 
+    private Object addEngine(Request req, Response res) throws Exception {
+        String authToken = req.headers("authorization");
+        JoinGameRequest joinRequest = serializer.fromJson(req.body(), JoinGameRequest.class);
+        gameService.addEnginePlayer(joinRequest, authToken);
+        res.status(200);
+        return "";
+    }
+
     private Object clearDatabase(Request req, Response res) throws Exception {
         clearService.clearData();
         res.status(200);
@@ -116,7 +130,12 @@ public class Server {
     }
 
     public void stop() {
+        engineService.shutdown();
         Spark.stop();
         Spark.awaitStop();
+        //Save any moves still waiting to be written
+        if (gameDataAccess instanceof CachingGameDAO cachingGameDataAccess) {
+            cachingGameDataAccess.close();
+        }
     }
 }
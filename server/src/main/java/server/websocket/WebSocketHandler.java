@@ -13,6 +13,8 @@ import model.GameData;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import service.EngineService;
+import service.GameLocks;
 import websocket.commands.MakeMoveCommand;
 import websocket.commands.UserGameCommand;
 import websocket.messages.ErrorMessage;
@@ -27,11 +29,16 @@ public class WebSocketHandler {
 
     private final AuthDAO authDataAccess;
     private final GameDAO gameDataAccess;
+    private final EngineService engineService;
     private final ConnectionManager connections = new ConnectionManager();
+    //Players, the engine and HTTP joins can act on a game at once, so each read-change-save runs under its lock
+    private final GameLocks gameLocks;
 
-    public WebSocketHandler(AuthDAO authDAO, GameDAO gameDAO) {
+    public WebSocketHandler(AuthDAO authDAO, GameDAO gameDAO, EngineService engineService, GameLocks gameLocks) {
         this.authDataAccess = authDAO;
         this.gameDataAccess = gameDAO;
+        this.engineService = engineService;
+        this.gameLocks = gameLocks;
     }
 
     @OnWebSocketMessage
@@ -56,6 +63,9 @@ public class WebSocketHandler {
 
     /**
      * Main websocket user command methods
+     * <p>
+     * Each holds the game's lock only to read, change and save the game. Messages go out once it's released, since
+     * a slow client would otherwise hold up every game sharing the lock.
      */
     private void connect(String authToken, Integer gameID, Session session) throws Exception {
         //Ensure that the root client is authorized and the game exists before saving the connection
@@ -65,6 +75,7 @@ public class WebSocketHandler {
         }
         var rootUser = rootUserAuth.username();
 
+        //Only reads the game, so there's nothing to lock
         var targetGame = gameDataAccess.getGame(gameID);
         if (gameDoesNotExist(targetGame, session)) {
             return;
@@ -78,74 +89,100 @@ public class WebSocketHandler {
         //Return a load game message to the root client
         var loadGameMessage = new LoadGameMessage(ServerMessage.ServerMessageType.LOAD_GAME, targetGame);
         session.getRemote().sendString(new Gson().toJson(loadGameMessage));
+
+        //If the computer is waiting on its turn (e.g. it plays white), get it moving
+        engineService.requestMove(targetGame, this::makeEngineMove);
     }
 
     private void makeMove(MakeMoveCommand command, Session session) throws Exception {
         //Check for authorization
-        if (isUnautherized(authDataAccess.getAuth(command.getAuthToken()), session)) {
-            return;
-        }
-        var rootClient = authDataAccess.getAuth(command.getAuthToken()).username();
-        var currentGame = gameDataAccess.getGame(command.getGameID());
-        //Check that the game exists in the database
-        if (gameDoesNotExist(currentGame, session)) {
+        var rootClientAuth = authDataAccess.getAuth(command.getAuthToken());
+        if (isUnautherized(rootClientAuth, session)) {
             return;
         }
-        //Check if the game has been marked as finished
-        if (currentGame.game().getGameState() == ChessGame.GameState.FINISHED) {
-            sendErrorMessage("Error: no moves can be made - game is over.", session);
-            return;
-        }
-        var playerColor = getPlayerColor(rootClient, currentGame);
-        ChessGame.TeamColor turn = currentGame.game().getTeamTurn();
-        //Make sure the player is moving their own color and that they aren't an observer
-        if ((playerColor.equals("white") && turn.equals(ChessGame.TeamColor.BLACK)) |
-                (playerColor.equals("black") && turn.equals(ChessGame.TeamColor.WHITE))) {
-            sendErrorMessage("Error: It is not your turn.", session);
-            return;
-        } else if (playerColor.equals("observer")) {
-            sendErrorMessage("Error: You cannot make moves as an observer.", session);
-            return;
-        }
-        //Check if a pawn promotion should occur and if a promotion piece has been supplied
-        if (violatesPromotionRules(command.getMove(), currentGame.game().getBoard(), playerColor)) {
-            sendErrorMessage("Error: when moving a pawn to the opposite end of the board, " +
-                    "you must specify a promotion piece.", session);
-            return;
-        }
-
-        ChessPiece piece = currentGame.game().getBoard().getPiece(command.getMove().getStartPosition());
+        var rootClient = rootClientAuth.username();
+        GameData currentGame;
+        ChessPiece piece;
+        NotificationMessage gameEnd;
         try {
-            currentGame.game().makeMove(command.getMove());
-        } catch (InvalidMoveException ex) {
-            sendErrorMessage("Error: You have attempted an invalid move. " +
-                    "Make sure it is your turn and that you typed in the intended coordinates.", session);
+            synchronized (gameLocks.lockFor(command.getGameID())) {
+                currentGame = requireGame(gameDataAccess.getGame(command.getGameID()));
+                checkMoveAllowed(command.getMove(), rootClient, currentGame);
+                piece = currentGame.game().getBoard().getPiece(command.getMove().getStartPosition());
+                try {
+                    currentGame.game().makeMove(command.getMove());
+                } catch (InvalidMoveException ex) {
+                    throw new ResponseException(400, "Error: You have attempted an invalid move. " +
+                            "Make sure it is your turn and that you typed in the intended coordinates.");
+                }
+                //Update board in database
+                gameDataAccess.updateGame(command.getGameID(), currentGame);
+                gameEnd = recordGameEnd(currentGame, currentGame.game().getTeamTurn());
+            }
+        } catch (ResponseException ex) {
+            sendErrorMessage(ex.getMessage(), session);
             return;
         }
-        //Update board in database
-        gameDataAccess.updateGame(command.getGameID(), currentGame);
         //Send the LOAD_GAME server message to all users involved in game
         var loadGameMessage = new LoadGameMessage(ServerMessage.ServerMessageType.LOAD_GAME, currentGame);
         connections.broadcast(null, command.getGameID(), loadGameMessage);
         //Send the notification to all others involved in game
-        var notification = generateMoveNotification(command, piece, rootClient);
+        var notification = generateMoveNotification(command.getMove(), piece, rootClient);
         connections.broadcast(rootClient, command.getGameID(), notification);
+        broadcastGameEnd(currentGame, gameEnd);
+
+        engineService.requestMove(currentGame, this::makeEngineMove);
+    }
+
+    /**
+     * Called from an engine thread once the computer has picked its move
+     */
+    private void makeEngineMove(Integer gameID, ChessMove move) throws Exception {
+        GameData currentGame;
+        ChessPiece piece;
+        NotificationMessage gameEnd;
+        synchronized (gameLocks.lockFor(gameID)) {
+            //Reload the game, since a player may have resigned or left while the engine was thinking
+            currentGame = gameDataAccess.getGame(gameID);
+            if (currentGame == null || !EngineService.isEngineTurn(currentGame)) {
+                return;
+            }
+            piece = currentGame.game().getBoard().getPiece(move.getStartPosition());
+            try {
+                currentGame.game().makeMove(move);
+            } catch (InvalidMoveException ex) {
+                //The position changed under the search, so the move no longer applies
+                return;
+            }
+            gameDataAccess.updateGame(gameID, currentGame);
+            gameEnd = recordGameEnd(currentGame, currentGame.game().getTeamTurn());
+        }
+        var loadGameMessage = new LoadGameMessage(ServerMessage.ServerMessageType.LOAD_GAME, currentGame);
+        connections.broadcast(null, gameID, loadGameMessage);
+        var notification = generateMoveNotification(move, piece, EngineService.ENGINE_USERNAME);
+        connections.broadcast(null, gameID, notification);
+        broadcastGameEnd(currentGame, gameEnd);
 
-        ChessGame.TeamColor oppositePlayerColor = currentGame.game().getTeamTurn();
-        checkForGameEndingMoves(currentGame, oppositePlayerColor, session);
+        //Only keeps going when the computer has both seats
+        engineService.requestMove(currentGame, this::makeEngineMove);
     }
 
     private void leave(String authToken, Integer gameID, Session session) throws Exception {
         //Ensure the user is authorized and provides a valid gameID
-        if (isUnautherized(authDataAccess.getAuth(authToken), session)) {
+        var rootClientAuth = authDataAccess.getAuth(authToken);
+        if (isUnautherized(rootClientAuth, session)) {
             return;
         }
-        var rootClient = authDataAccess.getAuth(authToken).username();
-        var targetGame = gameDataAccess.getGame(gameID);
-        if (gameDoesNotExist(targetGame, session)) {
+        var rootClient = rootClientAuth.username();
+        try {
+            synchronized (gameLocks.lockFor(gameID)) {
+                var targetGame = requireGame(gameDataAccess.getGame(gameID));
+                updateGameUsers(rootClient, gameID, targetGame);
+            }
+        } catch (ResponseException ex) {
+            sendErrorMessage(ex.getMessage(), session);
             return;
         }
-        updateGameUsers(rootClient, gameID, targetGame);
         connections.remove(rootClient);
 
         var notification = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
@@ -154,21 +191,27 @@ public class WebSocketHandler {
     }
 
     private void resign(String authToken, Integer gameID, Session session) throws Exception {
-        if (isUnautherized(authDataAccess.getAuth(authToken), session)) {
+        var rootClientAuth = authDataAccess.getAuth(authToken);
+        if (isUnautherized(rootClientAuth, session)) {
             return;
         }
-        var rootClient = authDataAccess.getAuth(authToken).username();
-        var activeGame = gameDataAccess.getGame(gameID);
-        var playerColor = getPlayerColor(rootClient, activeGame);
-        if (activeGame.game().getGameState() == ChessGame.GameState.FINISHED) {
-            sendErrorMessage("Error: cannot resign game after the game is already over.", session);
-            return;
-        } else if (playerColor.equals("observer")) {
-            sendErrorMessage("Error: observers cannot resign on behalf of a player.", session);
+        var rootClient = rootClientAuth.username();
+        try {
+            synchronized (gameLocks.lockFor(gameID)) {
+                var activeGame = requireGame(gameDataAccess.getGame(gameID));
+                var playerColor = getPlayerColor(rootClient, activeGame);
+                if (activeGame.game().getGameState() == ChessGame.GameState.FINISHED) {
+                    throw new ResponseException(400, "Error: cannot resign game after the game is already over.");
+                } else if (playerColor.equals("observer")) {
+                    throw new ResponseException(400, "Error: observers cannot resign on behalf of a player.");
+                }
+                activeGame.game().setGameState(ChessGame.GameState.FINISHED);
+                gameDataAccess.updateGame(gameID, activeGame);
+            }
+        } catch (ResponseException ex) {
+            sendErrorMessage(ex.getMessage(), session);
             return;
         }
-        activeGame.game().setGameState(ChessGame.GameState.FINISHED);
-        gameDataAccess.updateGame(gameID, activeGame);
         var notification = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                 String.format("%s has resigned, forfeiting the game.", rootClient));
         connections.broadcast(null, gameID, notification);
@@ -193,6 +236,14 @@ public class WebSocketHandler {
         return false;
     }
 
+    //For use under a game's lock, where the error is sent once the lock is released
+    private static GameData requireGame(GameData targetGame) throws ResponseException {
+        if (targetGame == null) {
+            throw new ResponseException(400, "Error: No game exists with provided gameID.");
+        }
+        return targetGame;
+    }
+
     private void sendErrorMessage(String message, Session session) throws Exception{
         var errorMessage = new ErrorMessage(ServerMessage.ServerMessageType.ERROR, message);
         session.getRemote().sendString(new Gson().toJson(errorMessage));
@@ -214,6 +265,27 @@ public class WebSocketHandler {
     /**
      * Helper methods for makeMove function
      */
+    private void checkMoveAllowed(ChessMove move, String rootClient, GameData currentGame) throws Exception {
+        //Check if the game has been marked as finished
+        if (currentGame.game().getGameState() == ChessGame.GameState.FINISHED) {
+            throw new ResponseException(400, "Error: no moves can be made - game is over.");
+        }
+        var playerColor = getPlayerColor(rootClient, currentGame);
+        ChessGame.TeamColor turn = currentGame.game().getTeamTurn();
+        //Make sure the player is moving their own color and that they aren't an observer
+        if ((playerColor.equals("white") && turn.equals(ChessGame.TeamColor.BLACK)) |
+                (playerColor.equals("black") && turn.equals(ChessGame.TeamColor.WHITE))) {
+            throw new ResponseException(400, "Error: It is not your turn.");
+        } else if (playerColor.equals("observer")) {
+            throw new ResponseException(400, "Error: You cannot make moves as an observer.");
+        }
+        //Check if a pawn promotion should occur and if a promotion piece has been supplied
+        if (violatesPromotionRules(move, currentGame.game().getBoard(), playerColor)) {
+            throw new ResponseException(400, "Error: when moving a pawn to the opposite end of the board, " +
+                    "you must specify a promotion piece.");
+        }
+    }
+
     private boolean violatesPromotionRules(ChessMove move, ChessBoard board, String playerColor) throws Exception{
         ChessPiece piece = board.getPiece(move.getStartPosition());
         int startRow = move.getStartPosition().getRow();
@@ -226,12 +298,12 @@ public class WebSocketHandler {
         return false;
     }
 
-    private NotificationMessage generateMoveNotification(MakeMoveCommand command, ChessPiece piece, String rootClient) {
+    private NotificationMessage generateMoveNotification(ChessMove move, ChessPiece piece, String rootClient) {
         ChessPiece.PieceType pieceType = piece.getPieceType();
-        String startRow = String.valueOf(command.getMove().getStartPosition().getRow());
-        String startCol = convertColumn(command.getMove().getStartPosition().getColumn());
-        String endRow = String.valueOf(command.getMove().getEndPosition().getRow());
-        String endCol = convertColumn(command.getMove().getEndPosition().getColumn());
+        String startRow = String.valueOf(move.getStartPosition().getRow());
+        String startCol = convertColumn(move.getStartPosition().getColumn());
+        String endRow = String.valueOf(move.getEndPosition().getRow());
+        String endCol = convertColumn(move.getEndPosition().getColumn());
         var notification = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                 String.format("%s moved the %s at %s%s to %s%s.",
                         rootClient, pieceType, startCol, startRow, endCol, endRow));
@@ -252,27 +324,56 @@ public class WebSocketHandler {
         return letters[col - 1];
     }
 
-    private void checkForGameEndingMoves(GameData gameData, ChessGame.TeamColor oppositePlayerColor, Session session) throws Exception {
+    /**
+     * Saves the game as over if the last move ended it, to be called under the game's lock
+     *
+     * @return the notification to broadcast once the lock is released, or null if there's nothing to announce
+     */
+    private NotificationMessage recordGameEnd(GameData gameData, ChessGame.TeamColor oppositePlayerColor)
+            throws Exception {
         String oppositeUsername = (oppositePlayerColor == ChessGame.TeamColor.WHITE) ?
                 gameData.whiteUsername() : gameData.blackUsername();
-        NotificationMessage notification = null;
         if (gameData.game().isInCheckmate(oppositePlayerColor)) {
             gameDataAccess.updateGame(gameData.gameID(), gameData);
-            notification = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
+            return new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                     String.format("%s is in checkmate - the game is over!", oppositeUsername));
         } else if (gameData.game().isInStalemate(oppositePlayerColor)) {
             gameDataAccess.updateGame(gameData.gameID(), gameData);
-            notification = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
+            return new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                     "The game has ended in a stalemate!");
+        } else if (gameData.game().isDrawByRepetition()) {
+            gameData.game().setGameState(ChessGame.GameState.FINISHED);
+            gameDataAccess.updateGame(gameData.gameID(), gameData);
+            return new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
+                    "The same position has come up three times - the game is drawn!");
+        } else if (gameData.game().isDrawByFiftyMoveRule()) {
+            gameData.game().setGameState(ChessGame.GameState.FINISHED);
+            gameDataAccess.updateGame(gameData.gameID(), gameData);
+            return new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
+                    "Fifty moves without a capture or pawn move - the game is drawn!");
+        } else if (isDeadDraw(gameData)) {
+            gameData.game().setGameState(ChessGame.GameState.FINISHED);
+            gameDataAccess.updateGame(gameData.gameID(), gameData);
+            return new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
+                    "Neither side can force checkmate - the game is drawn!");
         } else if (gameData.game().isInCheck(oppositePlayerColor)) {
-            notification = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
+            return new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION,
                     String.format("%s is in check!", oppositeUsername));
         }
+        return null;
+    }
+
+    private void broadcastGameEnd(GameData gameData, NotificationMessage notification) throws Exception {
         if (notification != null) {
             connections.broadcast(null, gameData.gameID(), notification);
         }
     }
 
+    private boolean isDeadDraw(GameData gameData) {
+        Tablebase.Result result = engineService.adjudicate(gameData.game());
+        return result != null && result.outcome() == Tablebase.Outcome.DRAW;
+    }
+
     /**
      * Helper methods for leave function
      */
@@ -11,9 +11,10 @@ public class AuthService {
     }
 
     public AuthData authenticate(String authToken) throws Exception {
-        if (authDataAccess.getAuth(authToken) == null) {
+        var authData = authDataAccess.getAuth(authToken);
+        if (authData == null) {
             throw new UnauthorizedException("Error: unauthorized");
         }
-        return authDataAccess.getAuth(authToken);
+        return authData;
     }
 }
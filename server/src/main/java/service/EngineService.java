@@ -0,0 +1,176 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.OpeningBook;
+import chess.Search;
+import chess.SearchLimits;
+import chess.Tablebase;
+import chess.TranspositionTable;
+import model.GameData;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays the moves for any seat taken by the computer.
+ * <p>
+ * Searches run on a small fixed pool of daemon threads with a bounded queue, so bot games can never tie up the
+ * threads serving human requests. Each game has at most one search queued or running at a time. All searches share
+ * one transposition table, which is keyed by position so games never see each other's results for a different
+ * position.
+ * <p>
+ * If the server is started with {@code -Dchess.book=<file>} pointing at an {@link OpeningBook}, the engine plays
+ * from the book while the game is still in it and only searches once it leaves. Likewise
+ * {@code -Dchess.tablebase=<file>} loads a {@link Tablebase}, which the search uses for endgames and which
+ * {@link #adjudicate} uses to call games that can no longer be won.
+ */
+public class EngineService {
+    public static final String ENGINE_USERNAME = "ChessBot";
+
+    private static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int DEFAULT_QUEUE_CAPACITY = 64;
+    private static final long DEFAULT_SEARCH_MILLIS = 1000;
+    private static final int TABLE_MEGABYTES = 64;
+    private static final String BOOK_PROPERTY = "chess.book";
+    private static final String TABLEBASE_PROPERTY = "chess.tablebase";
+
+    private final ThreadPoolExecutor executor;
+    private final SearchLimits limits;
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+    private final Set<Integer> gamesInProgress = ConcurrentHashMap.newKeySet();
+    private final TranspositionTable table = new TranspositionTable(TABLE_MEGABYTES);
+    //Search keeps per-thread buffers, so each worker gets its own
+    private final ThreadLocal<Search> searches;
+
+    public EngineService() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_SEARCH_MILLIS,
+                openBook(System.getProperty(BOOK_PROPERTY)), openTablebase(System.getProperty(TABLEBASE_PROPERTY)));
+    }
+
+    /**
+     * @param book      the opening book to play from, or null to always search
+     * @param tablebase endgame results to search and adjudicate with, or null for none
+     */
+    public EngineService(int threads, int queueCapacity, long searchMillis, OpeningBook book, Tablebase tablebase) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "engine-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.limits = SearchLimits.time(searchMillis);
+        this.book = book;
+        this.tablebase = tablebase;
+        this.searches = ThreadLocal.withInitial(() -> new Search(table, tablebase));
+    }
+
+    private static OpeningBook openBook(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            return OpeningBook.open(Path.of(path));
+        } catch (IOException ex) {
+            //A missing book only makes the engine slower in the opening, so carry on without it
+            System.out.printf("Could not open opening book %s: %s%n", path, ex.getMessage());
+            return null;
+        }
+    }
+
+    private static Tablebase openTablebase(String path) {
+        if (path == null) {
+            return null;
+        }
+        try {
+            return Tablebase.open(Path.of(path));
+        } catch (IOException ex) {
+            //Without it endgames are searched like any other position and dead draws play on
+            System.out.printf("Could not open tablebase %s: %s%n", path, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Looks the game up in the tablebase
+     *
+     * @return the exact result for the side to move, or null if there is no tablebase, it doesn't cover the
+     * position, castling or en passant is still possible, or the game is already over
+     */
+    public Tablebase.Result adjudicate(ChessGame game) {
+        if (tablebase == null || game.getGameState() == ChessGame.GameState.FINISHED) {
+            return null;
+        }
+        return tablebase.probe(game);
+    }
+
+    /**
+     * Called with the move the engine picked once its search finishes
+     */
+    public interface MoveHandler {
+        void onMove(Integer gameID, ChessMove move) throws Exception;
+    }
+
+    public static boolean isEngineTurn(GameData gameData) {
+        if (gameData.game().getGameState() == ChessGame.GameState.FINISHED) {
+            return false;
+        }
+        String username = gameData.game().getTeamTurn() == ChessGame.TeamColor.WHITE ?
+                gameData.whiteUsername() : gameData.blackUsername();
+        return Objects.equals(username, ENGINE_USERNAME);
+    }
+
+    /**
+     * Starts a search for the side to move if that side is played by the engine.
+     *
+     * @return True if a search was queued, false if it isn't the engine's turn, the game already has a search
+     * running, or the queue is full
+     */
+    public boolean requestMove(GameData gameData, MoveHandler handler) {
+        if (!isEngineTurn(gameData) || !gamesInProgress.add(gameData.gameID())) {
+            return false;
+        }
+        //Search a copy so the caller is free to keep using its game
+        ChessGame position = gameData.game().copy();
+        try {
+            executor.execute(() -> {
+                ChessMove move;
+                try {
+                    move = book == null ? null : book.pickMove(position, ThreadLocalRandom.current());
+                    if (move == null) {
+                        move = searches.get().search(position, limits).bestMove();
+                    }
+                } finally {
+                    gamesInProgress.remove(gameData.gameID());
+                }
+                if (move == null) {
+                    return;
+                }
+                try {
+                    handler.onMove(gameData.gameID(), move);
+                } catch (Exception ex) {
+                    ex.printStackTrace(System.out);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            gamesInProgress.remove(gameData.gameID());
+            return false;
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
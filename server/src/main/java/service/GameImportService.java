@@ -0,0 +1,151 @@
+package service;
+
+import chess.ChessGame;
+import chess.InvalidMoveException;
+import chess.PgnGame;
+import chess.PgnReader;
+import dataaccess.ImportedGameDAO;
+import dataaccess.MySqlImportedGameDAO;
+import model.GameData;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulk loads historical games from PGN, e.g. to seed an opening explorer or a load test.
+ * <p>
+ * The calling thread streams games out of the file and hands them to a pool of workers in batches. Each worker
+ * replays its batch to check every move, then inserts the games that are legal with one
+ * {@link ImportedGameDAO#createGames batch insert}. The pool's queue is bounded and the reader runs a batch itself
+ * when it's full, so a fast reader can't pile up a whole file of games in memory. Once a batch fails to store,
+ * reading stops and the batches still queued are skipped, so a database outage ends the import straight away.
+ * <p>
+ * Imported games go in their own table rather than with the games played here, so the lobby doesn't have to list
+ * them and nobody can join one.
+ */
+public class GameImportService {
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int MAX_GAME_NAME = 256;
+
+    private final ImportedGameDAO gameDataAccess;
+    private final int workers;
+    private final int batchSize;
+
+    /**
+     * Counts of the games read from a file
+     *
+     * @param imported games that were stored
+     * @param rejected games with an illegal or unreadable move, which were skipped
+     */
+    public record ImportResult(long imported, long rejected) {
+    }
+
+    public GameImportService(ImportedGameDAO gameDataAccess) {
+        this(gameDataAccess, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    public GameImportService(ImportedGameDAO gameDataAccess, int workers, int batchSize) {
+        this.gameDataAccess = gameDataAccess;
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public ImportResult importGames(Path pgnFile) throws Exception {
+        try (PgnReader reader = PgnReader.open(pgnFile)) {
+            return importGames(reader);
+        }
+    }
+
+    /**
+     * Reads every game from the reader and stores the legal ones
+     *
+     * @throws Exception if reading fails or a batch can't be stored. Batches already stored stay stored.
+     */
+    public ImportResult importGames(PgnReader reader) throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        List<Future<Integer>> batches = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        long read = 0;
+        try {
+            List<PgnGame> batch = new ArrayList<>(batchSize);
+            PgnGame game;
+            while (!failed.get() && (game = reader.next()) != null) {
+                batch.add(game);
+                read++;
+                if (batch.size() == batchSize) {
+                    List<PgnGame> full = batch;
+                    batches.add(pool.submit(() -> storeBatch(full, failed)));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty() && !failed.get()) {
+                List<PgnGame> last = batch;
+                batches.add(pool.submit(() -> storeBatch(last, failed)));
+            }
+
+            long imported = 0;
+            for (Future<Integer> stored : batches) {
+                imported += stored.get();
+            }
+            return new ImportResult(imported, read - imported);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int storeBatch(List<PgnGame> games, AtomicBoolean failed) throws Exception {
+        if (failed.get()) {
+            return 0;
+        }
+        List<GameData> legal = new ArrayList<>(games.size());
+        for (PgnGame game : games) {
+            try {
+                ChessGame played = game.play();
+                legal.add(new GameData(null, null, null, gameName(game), played));
+            } catch (InvalidMoveException e) {
+                //Real-world PGN has the odd corrupt game; skip it rather than failing the whole import
+            }
+        }
+        if (!legal.isEmpty()) {
+            try {
+                gameDataAccess.createGames(legal);
+            } catch (Exception e) {
+                failed.set(true);
+                throw e;
+            }
+        }
+        return legal.size();
+    }
+
+    //The players aren't users of this server, so they go in the name rather than the username columns
+    private static String gameName(PgnGame game) {
+        String name = String.format("%s vs %s", game.tags().getOrDefault("White", "?"),
+                game.tags().getOrDefault("Black", "?"));
+        String event = game.tags().get("Event");
+        if (event != null && !event.equals("?")) {
+            name += String.format(" (%s)", event);
+        }
+        return name.length() > MAX_GAME_NAME ? name.substring(0, MAX_GAME_NAME) : name;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.out.println("Usage: GameImportService <games.pgn>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        ImportResult result = new GameImportService(new MySqlImportedGameDAO()).importGames(Path.of(args[0]));
+        System.out.printf("Imported %,d games and rejected %,d in %.1f s%n", result.imported(), result.rejected(),
+                (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,35 @@
+package service;
+
+/**
+ * Locks for changing a game, shared by everything that reads a game, changes it and saves it back: joining over
+ * HTTP, moves and resignations over the websocket, and the engine. Holding a game's lock from the read to the save
+ * means none of them can overwrite another's change with a stale copy.
+ * <p>
+ * Games are spread over a fixed number of stripes rather than getting a lock each, so the locks take the same
+ * memory however many games there are. Two games on the same stripe just wait for each other now and then.
+ * Nothing should hold one game's lock while taking another's.
+ */
+public class GameLocks {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final Object[] stripes;
+
+    public GameLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public GameLocks(int stripes) {
+        this.stripes = new Object[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * @return the monitor to synchronize on while changing the game, or a shared one for a missing ID
+     */
+    public Object lockFor(Integer gameID) {
+        int hash = gameID == null ? 0 : gameID;
+        return stripes[Math.floorMod(hash, stripes.length)];
+    }
+}
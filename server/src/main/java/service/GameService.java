@@ -14,10 +14,19 @@ import java.util.Objects;
 
 public class GameService extends AuthService {
     private final GameDAO gameDataAccess;
+    private final GameLocks gameLocks;
 
     public GameService(GameDAO gameDataAccess, AuthDAO authDataAccess) {
+        this(gameDataAccess, authDataAccess, new GameLocks());
+    }
+
+    /**
+     * @param gameLocks the locks shared with anything else that changes games, such as the websocket handler
+     */
+    public GameService(GameDAO gameDataAccess, AuthDAO authDataAccess, GameLocks gameLocks) {
         super(authDataAccess);
         this.gameDataAccess = gameDataAccess;
+        this.gameLocks = gameLocks;
     }
 
     public ListGamesResponse listGames(String authToken) throws Exception {
@@ -40,6 +49,25 @@ public class GameService extends AuthService {
 
     public void joinGame(JoinGameRequest joinRequest, String authToken) throws Exception {
         String currentUser = super.authenticate(authToken).username();
+        takeSeat(joinRequest, currentUser);
+    }
+
+    /**
+     * Seats the computer opponent in the requested colour. Any logged in user may add it to an open seat.
+     */
+    public void addEnginePlayer(JoinGameRequest joinRequest, String authToken) throws Exception {
+        super.authenticate(authToken);
+        takeSeat(joinRequest, EngineService.ENGINE_USERNAME);
+    }
+
+    private void takeSeat(JoinGameRequest joinRequest, String currentUser) throws Exception {
+        //A move saved between reading the game and saving the new seat would otherwise be lost, or undo the join
+        synchronized (gameLocks.lockFor(joinRequest.gameID())) {
+            takeSeatLocked(joinRequest, currentUser);
+        }
+    }
+
+    private void takeSeatLocked(JoinGameRequest joinRequest, String currentUser) throws Exception {
         GameData currentGame = gameDataAccess.getGame(joinRequest.gameID());
         if (currentGame == null) {
             throw new BadRequestException("Error: bad request");
@@ -19,7 +19,9 @@ public class UserService extends AuthService {
     }
 
     public LoginRegisterResponse registerUser(UserData newUser) throws Exception {
-        if (userDataAccess.getUser(newUser.username()) != null) {
+        //The engine's username is reserved so nobody can move for it
+        if (userDataAccess.getUser(newUser.username()) != null ||
+                Objects.equals(newUser.username(), EngineService.ENGINE_USERNAME)) {
             throw new RedundantDataException("Error: User already exists");
         } else if (newUser.password() == null || newUser.username() == null) {
             throw new BadRequestException("Error: Bad Request");
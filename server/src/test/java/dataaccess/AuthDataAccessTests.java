@@ -5,8 +5,6 @@ import org.junit.jupiter.api.*;
 import service.AuthService;
 import service.ClearService;
 
-import java.sql.ResultSet;
-
 public class AuthDataAccessTests {
     static private BaseMySqlDAO baseDataAccess;
     static private AuthDAO authDataAccess;
@@ -34,9 +32,8 @@ public class AuthDataAccessTests {
     public void createAuthSuccess() throws Exception {
         authDataAccess.createAuth(authData);
         var statement = "SELECT authToken, username FROM auth where authToken=?";
-        ResultSet rs = baseDataAccess.performQuery(statement, authData.authToken());
-        Assertions.assertTrue(rs.next());
-        var storedAuthToken = rs.getString("authToken");
+        var storedAuthToken = baseDataAccess.queryOne(statement, rs -> rs.getString("authToken"),
+                authData.authToken());
         Assertions.assertEquals(storedAuthToken, authData.authToken());
     }
 
@@ -77,4 +74,19 @@ public class AuthDataAccessTests {
         authDataAccess.deleteAuth(new AuthData("badAuth", "username"));
         Assertions.assertEquals(authData, authDataAccess.getAuth(authData.authToken()));
     }
+
+    @Test
+    @DisplayName("Queries Don't Leak Connections")
+    public void queriesReleaseConnections() throws Exception {
+        authDataAccess.createAuth(authData);
+        long createdBefore = DatabaseManager.getPoolMetrics().created();
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertNotNull(authDataAccess.getAuth(authData.authToken()));
+        }
+        ConnectionPool.Metrics metrics = DatabaseManager.getPoolMetrics();
+        Assertions.assertEquals(0, metrics.active(), "Every connection should be back in the pool");
+        Assertions.assertEquals(0, metrics.leaks());
+        Assertions.assertTrue(metrics.created() - createdBefore < 10,
+                "Queries should reuse pooled connections rather than open one each");
+    }
 }
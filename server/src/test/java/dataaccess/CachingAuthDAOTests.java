@@ -0,0 +1,123 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class CachingAuthDAOTests {
+    private static final long TTL = 60_000;
+    private static final long NEGATIVE_TTL = 1_000;
+
+    private CountingAuthDAO database;
+    private long now;
+    private CachingAuthDAO authDataAccess;
+
+    AuthData authData = new AuthData("authToken", "username");
+
+    @BeforeEach
+    public void init() {
+        database = new CountingAuthDAO();
+        now = 0;
+        authDataAccess = new CachingAuthDAO(database, 3, TTL, NEGATIVE_TTL, () -> now);
+    }
+
+    @Test
+    @DisplayName("Known Tokens are Served from Memory")
+    public void cachesKnownTokens() throws Exception {
+        database.createAuth(authData);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertEquals(authData, authDataAccess.getAuth(authData.authToken()));
+        }
+        Assertions.assertEquals(1, database.lookups);
+    }
+
+    @Test
+    @DisplayName("Created Tokens Don't Need a Lookup")
+    public void createFillsCache() throws Exception {
+        authDataAccess.createAuth(authData);
+        Assertions.assertEquals(authData, authDataAccess.getAuth(authData.authToken()));
+        Assertions.assertEquals(0, database.lookups);
+    }
+
+    @Test
+    @DisplayName("Unknown Tokens are Remembered Briefly")
+    public void cachesUnknownTokens() throws Exception {
+        Assertions.assertNull(authDataAccess.getAuth("badToken"));
+        Assertions.assertNull(authDataAccess.getAuth("badToken"));
+        Assertions.assertEquals(1, database.lookups);
+
+        now += NEGATIVE_TTL;
+        Assertions.assertNull(authDataAccess.getAuth("badToken"));
+        Assertions.assertEquals(2, database.lookups);
+
+        //Creating the token replaces the remembered miss straight away
+        authDataAccess.createAuth(new AuthData("badToken", "username"));
+        Assertions.assertNotNull(authDataAccess.getAuth("badToken"));
+    }
+
+    @Test
+    @DisplayName("Entries Expire")
+    public void entriesExpire() throws Exception {
+        database.createAuth(authData);
+        authDataAccess.getAuth(authData.authToken());
+        now += TTL - 1;
+        authDataAccess.getAuth(authData.authToken());
+        Assertions.assertEquals(1, database.lookups);
+
+        //Deleted behind the cache's back, e.g. by another server
+        database.deleteAuth(authData);
+        now += 1;
+        Assertions.assertNull(authDataAccess.getAuth(authData.authToken()));
+    }
+
+    @Test
+    @DisplayName("Logging Out Takes Effect Immediately")
+    public void deleteInvalidates() throws Exception {
+        authDataAccess.createAuth(authData);
+        authDataAccess.getAuth(authData.authToken());
+        authDataAccess.deleteAuth(authData);
+        Assertions.assertNull(authDataAccess.getAuth(authData.authToken()));
+    }
+
+    @Test
+    @DisplayName("Clear Empties the Cache")
+    public void clearInvalidates() throws Exception {
+        authDataAccess.createAuth(authData);
+        authDataAccess.clear();
+        Assertions.assertEquals(0, authDataAccess.size());
+        Assertions.assertNull(authDataAccess.getAuth(authData.authToken()));
+    }
+
+    @Test
+    @DisplayName("Least Recently Used Tokens are Dropped")
+    public void evictsLeastRecentlyUsed() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            database.createAuth(new AuthData("token" + i, "user" + i));
+            authDataAccess.getAuth("token" + i);
+        }
+        //Use token0 so token1 is now the least recently used
+        authDataAccess.getAuth("token0");
+        database.createAuth(new AuthData("token3", "user3"));
+        authDataAccess.getAuth("token3");
+        Assertions.assertEquals(3, authDataAccess.size());
+        Assertions.assertEquals(4, database.lookups);
+
+        authDataAccess.getAuth("token0");
+        Assertions.assertEquals(4, database.lookups);
+        authDataAccess.getAuth("token1");
+        Assertions.assertEquals(5, database.lookups);
+    }
+
+    //Counts how often the cache had to fall through to the real DAO
+    private static class CountingAuthDAO extends MemoryAuthDAO {
+        int lookups;
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            lookups++;
+            return super.getAuth(authToken);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class CachingGameDAOTests {
+    private static final long NEVER = 60_000;
+
+    private CountingGameDAO database;
+    private CachingGameDAO gameDataAccess;
+    private long now;
+
+    @BeforeEach
+    public void init() throws Exception {
+        database = new CountingGameDAO();
+        database.createGames(List.of(new GameData(null, "white", "black", "game", new ChessGame())));
+        now = 0;
+    }
+
+    @AfterEach
+    public void close() {
+        gameDataAccess.close();
+    }
+
+    @Test
+    @DisplayName("Games are Read Once and Copied Out")
+    public void cachesReads() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        GameData first = gameDataAccess.getGame(1);
+        first.game().makeMove(move("e2", "e4"));
+        GameData second = gameDataAccess.getGame(1);
+        Assertions.assertEquals(new ChessGame(), second.game(), "Changing a copy shouldn't change the cache");
+        Assertions.assertEquals(1, database.reads);
+        Assertions.assertNull(gameDataAccess.getGame(2));
+    }
+
+    @Test
+    @DisplayName("Updates are Saved Together at the Next Flush")
+    public void coalescesUpdates() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        GameData game = gameDataAccess.getGame(1);
+        String[][] moves = {{"e2", "e4"}, {"e7", "e5"}, {"g1", "f3"}, {"b8", "c6"}};
+        for (String[] move : moves) {
+            game.game().makeMove(move(move[0], move[1]));
+            gameDataAccess.updateGame(1, game);
+        }
+        Assertions.assertEquals(0, database.batches.size());
+        Assertions.assertEquals(game.game(), gameDataAccess.getGame(1).game());
+
+        Assertions.assertEquals(1, gameDataAccess.flush());
+        Assertions.assertEquals(1, database.batches.size());
+        Assertions.assertEquals(game.game(), database.getGame(1).game());
+        Assertions.assertEquals(0, gameDataAccess.flush(), "Nothing has changed since");
+    }
+
+    @Test
+    @DisplayName("Sync Mode Saves Before Returning")
+    public void syncSavesImmediately() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.SYNC, 1);
+        GameData game = gameDataAccess.getGame(1);
+        game.game().makeMove(move("d2", "d4"));
+        gameDataAccess.updateGame(1, game);
+        Assertions.assertEquals(1, database.writes);
+        Assertions.assertEquals(game.game(), database.getGame(1).game());
+        Assertions.assertEquals(0, gameDataAccess.flush());
+    }
+
+    @Test
+    @DisplayName("Sync Mode Doesn't Keep Rejected Updates")
+    public void syncKeepsRejectedUpdatesOut() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.SYNC, 1);
+        GameData game = gameDataAccess.getGame(1);
+        game.game().makeMove(move("d2", "d4"));
+        database.failWrites = true;
+        Assertions.assertThrows(RuntimeException.class, () -> gameDataAccess.updateGame(1, game));
+        database.failWrites = false;
+
+        Assertions.assertEquals(new ChessGame(), gameDataAccess.getGame(1).game());
+        Assertions.assertEquals(0, gameDataAccess.flush());
+        Assertions.assertEquals(new ChessGame(), database.getGame(1).game());
+
+        //Nor when the game wasn't cached yet
+        gameDataAccess.clear();
+        database.createGames(List.of(new GameData(null, "white", "black", "game", new ChessGame())));
+        database.failWrites = true;
+        Assertions.assertThrows(RuntimeException.class, () -> gameDataAccess.updateGame(1, game));
+        database.failWrites = false;
+        Assertions.assertEquals(0, gameDataAccess.size());
+        Assertions.assertEquals(new ChessGame(), gameDataAccess.getGame(1).game());
+    }
+
+    @Test
+    @DisplayName("Every N Moves Saves in the Background")
+    public void savesEveryNMoves() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.EVERY_N_MOVES, 2);
+        GameData game = gameDataAccess.getGame(1);
+        game.game().makeMove(move("c2", "c4"));
+        gameDataAccess.updateGame(1, game);
+        Thread.sleep(50);
+        Assertions.assertEquals(0, database.batches.size());
+
+        game.game().makeMove(move("c7", "c5"));
+        gameDataAccess.updateGame(1, game);
+        waitFor(() -> database.batches.size() == 1);
+        Assertions.assertEquals(game.game(), database.getGame(1).game());
+    }
+
+    @Test
+    @DisplayName("Finished Games are Saved Straight Away")
+    public void savesFinishedGames() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        GameData game = gameDataAccess.getGame(1);
+        game.game().setGameState(ChessGame.GameState.FINISHED);
+        gameDataAccess.updateGame(1, game);
+        waitFor(() -> database.batches.size() == 1);
+        Assertions.assertEquals(ChessGame.GameState.FINISHED, database.getGame(1).game().getGameState());
+    }
+
+    @Test
+    @DisplayName("Failed Saves are Tried Again")
+    public void retriesFailedSaves() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        GameData game = gameDataAccess.getGame(1);
+        game.game().makeMove(move("e2", "e4"));
+        gameDataAccess.updateGame(1, game);
+
+        database.failWrites = true;
+        Assertions.assertThrows(RuntimeException.class, gameDataAccess::flush);
+        database.failWrites = false;
+        Assertions.assertEquals(1, gameDataAccess.flush());
+        Assertions.assertEquals(game.game(), database.getGame(1).game());
+    }
+
+    @Test
+    @DisplayName("Listing Shows Unsaved Changes")
+    public void listIncludesUnsaved() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        GameData game = gameDataAccess.getGame(1);
+        gameDataAccess.updateGame(1, new GameData(1, "white", "newBlack", game.gameName(), game.game()));
+        Assertions.assertEquals("newBlack", gameDataAccess.listGames().get(0).blackUsername());
+    }
+
+    @Test
+    @DisplayName("Idle Saved Games are Dropped")
+    public void evictsIdleGames() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        GameData game = gameDataAccess.getGame(1);
+        gameDataAccess.updateGame(1, game);
+        now += NEVER;
+        database.failWrites = true;
+        Assertions.assertThrows(RuntimeException.class, gameDataAccess::flush);
+        Assertions.assertEquals(1, gameDataAccess.size(), "Unsaved games must stay however idle they are");
+
+        database.failWrites = false;
+        gameDataAccess.flush();
+        Assertions.assertEquals(0, gameDataAccess.size());
+        gameDataAccess.getGame(1);
+        Assertions.assertEquals(2, database.reads);
+    }
+
+    @Test
+    @DisplayName("Clear Drops Unsaved Games")
+    public void clearDropsCache() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        gameDataAccess.updateGame(1, gameDataAccess.getGame(1));
+        gameDataAccess.clear();
+        Assertions.assertEquals(0, gameDataAccess.size());
+        Assertions.assertEquals(0, gameDataAccess.flush());
+        Assertions.assertNull(gameDataAccess.getGame(1));
+    }
+
+    @Test
+    @DisplayName("Closing Saves Everything")
+    public void closeFlushes() throws Exception {
+        gameDataAccess = cache(CachingGameDAO.Durability.INTERVAL, 1);
+        GameData game = gameDataAccess.getGame(1);
+        game.game().makeMove(move("e2", "e4"));
+        gameDataAccess.updateGame(1, game);
+        gameDataAccess.close();
+        Assertions.assertEquals(game.game(), database.getGame(1).game());
+    }
+
+    private CachingGameDAO cache(CachingGameDAO.Durability durability, int flushEveryMoves) {
+        return new CachingGameDAO(database, new CachingGameDAO.Settings(durability, flushEveryMoves, NEVER, NEVER),
+                () -> now);
+    }
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(position(from), position(to), null);
+    }
+
+    private static ChessPosition position(String square) {
+        return new ChessPosition(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the flush");
+            Thread.sleep(10);
+        }
+    }
+
+    //Counts how often the cache went to the real DAO, and can be told to fail its writes
+    private static class CountingGameDAO extends MemoryGameDAO {
+        volatile int reads;
+        volatile int writes;
+        volatile boolean failWrites;
+        final List<List<GameData>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public GameData getGame(Integer gameID) throws Exception {
+            reads++;
+            return super.getGame(gameID);
+        }
+
+        @Override
+        public void updateGame(Integer gameID, GameData gameUpdate) {
+            if (failWrites) {
+                throw new RuntimeException("Database is down");
+            }
+            writes++;
+            super.updateGame(gameID, gameUpdate);
+        }
+
+        @Override
+        public synchronized void updateGames(List<GameData> gameUpdates) {
+            if (failWrites) {
+                throw new RuntimeException("Database is down");
+            }
+            batches.add(gameUpdates);
+            super.updateGames(gameUpdates);
+        }
+    }
+}
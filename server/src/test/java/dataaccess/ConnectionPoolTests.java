@@ -0,0 +1,157 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConnectionPoolTests {
+
+    @Test
+    @DisplayName("Closed Connections are Reused")
+    public void reusesConnections() throws Exception {
+        List<FakeConnection> opened = new ArrayList<>();
+        try (ConnectionPool pool = new ConnectionPool(() -> open(opened), settings(0, 2, 100, 0))) {
+            for (int i = 0; i < 100; i++) {
+                try (Connection connection = pool.getConnection()) {
+                    Assertions.assertFalse(connection.isClosed());
+                }
+            }
+            Assertions.assertEquals(1, opened.size());
+            ConnectionPool.Metrics metrics = pool.metrics();
+            Assertions.assertEquals(100, metrics.acquired());
+            Assertions.assertEquals(0, metrics.active());
+            Assertions.assertEquals(1, metrics.idle());
+        }
+        Assertions.assertTrue(opened.get(0).closed.get(), "Closing the pool should close idle connections");
+    }
+
+    @Test
+    @DisplayName("Borrowers Wait and Time Out at the Maximum")
+    public void timesOutWhenExhausted() throws Exception {
+        List<FakeConnection> opened = new ArrayList<>();
+        try (ConnectionPool pool = new ConnectionPool(() -> open(opened), settings(0, 2, 50, 0))) {
+            Connection first = pool.getConnection();
+            Connection second = pool.getConnection();
+            Assertions.assertThrows(SQLException.class, pool::getConnection);
+            Assertions.assertEquals(1, pool.metrics().timeouts());
+
+            //A connection given back on another thread wakes up the waiting borrower
+            Thread giveBack = new Thread(() -> close(first));
+            giveBack.start();
+            try (Connection third = pool.getConnection()) {
+                Assertions.assertNotNull(third);
+            }
+            giveBack.join();
+            second.close();
+            Assertions.assertEquals(2, opened.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Returned Proxy Can't Be Used")
+    public void proxyIsInvalidAfterClose() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(() -> open(new ArrayList<>()), settings(0, 1, 100, 0))) {
+            Connection connection = pool.getConnection();
+            connection.close();
+            connection.close();
+            Assertions.assertTrue(connection.isClosed());
+            Assertions.assertThrows(SQLException.class, connection::createStatement);
+            Assertions.assertEquals(1, pool.metrics().idle(), "Closing twice should only return it once");
+        }
+    }
+
+    @Test
+    @DisplayName("Broken Connections are Replaced")
+    public void replacesBrokenConnections() throws Exception {
+        List<FakeConnection> opened = new ArrayList<>();
+        try (ConnectionPool pool = new ConnectionPool(() -> open(opened), settings(0, 1, 100, 0))) {
+            pool.getConnection().close();
+            opened.get(0).closed.set(true);
+            try (Connection connection = pool.getConnection()) {
+                Assertions.assertFalse(connection.isClosed());
+            }
+            Assertions.assertEquals(2, opened.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Idle Connections are Evicted Down to the Minimum")
+    public void evictsIdleConnections() throws Exception {
+        List<FakeConnection> opened = new ArrayList<>();
+        try (ConnectionPool pool = new ConnectionPool(() -> open(opened), settings(1, 3, 100, 100))) {
+            Connection a = pool.getConnection();
+            Connection b = pool.getConnection();
+            Connection c = pool.getConnection();
+            a.close();
+            b.close();
+            c.close();
+            Assertions.assertEquals(3, pool.metrics().idle());
+
+            waitFor(() -> pool.metrics().idle() == 1);
+            Assertions.assertEquals(2, pool.metrics().evicted());
+        }
+    }
+
+    @Test
+    @DisplayName("Held Connections are Reported as Leaks")
+    public void detectsLeaks() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(() -> open(new ArrayList<>()),
+                new ConnectionPool.Settings(0, 1, 100, 60_000, 50))) {
+            Connection leaked = pool.getConnection();
+            waitFor(() -> pool.metrics().leaks() == 1);
+            leaked.close();
+        }
+    }
+
+    private static ConnectionPool.Settings settings(int min, int max, long acquireTimeout, long idleTimeout) {
+        return new ConnectionPool.Settings(min, max, acquireTimeout, idleTimeout == 0 ? 60_000 : idleTimeout, 0);
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the pool");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            Thread.sleep(20);
+            connection.close();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static synchronized Connection open(List<FakeConnection> opened) {
+        FakeConnection fake = new FakeConnection();
+        opened.add(fake);
+        return fake.proxy;
+    }
+
+    //Just enough of a Connection for the pool: it can be closed, and knows whether it is
+    private static class FakeConnection {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final Connection proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (self, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> closed.get();
+                    case "isValid" -> !closed.get();
+                    case "getAutoCommit" -> true;
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -11,6 +11,7 @@ import service.UserService;
 import spark.utils.Assert;
 
 import java.util.ArrayList;
+import java.util.List;
 
 public class GameDataAccessTests {
     static private BaseMySqlDAO baseDataAccess;
@@ -38,13 +39,14 @@ public class GameDataAccessTests {
     public void createGameSuccess() throws Exception {
         gameDataAccess.createGame(goodGame);
         var statement = "SELECT * FROM games WHERE gameID=?";
-        var rs = baseDataAccess.performQuery(statement, 1);
-        Assertions.assertTrue(rs.next());
-        Assertions.assertEquals(goodGame.blackUsername(), rs.getString("blackUsername"));
-        Assertions.assertEquals(goodGame.whiteUsername(), rs.getString("whiteUsername"));
-        Assertions.assertEquals(goodGame.gameName(), rs.getString("gameName"));
-        var json = rs.getString("game");
-        ChessGame storedGame = new Gson().fromJson(json, ChessGame.class);
+        var stored = baseDataAccess.queryOne(statement, rs -> new GameData(rs.getInt("gameID"),
+                rs.getString("whiteUsername"), rs.getString("blackUsername"), rs.getString("gameName"),
+                new Gson().fromJson(rs.getString("game"), ChessGame.class)), 1);
+        Assertions.assertNotNull(stored);
+        Assertions.assertEquals(goodGame.blackUsername(), stored.blackUsername());
+        Assertions.assertEquals(goodGame.whiteUsername(), stored.whiteUsername());
+        Assertions.assertEquals(goodGame.gameName(), stored.gameName());
+        ChessGame storedGame = stored.game();
         Assertions.assertEquals(goodGame.game(), storedGame);
         System.out.println(storedGame);
     }
@@ -121,4 +123,47 @@ public class GameDataAccessTests {
         GameData updatedGame = new GameData(1, goodGame.whiteUsername(), "black", null, goodGame.game());
         Assertions.assertThrows(DataAccessException.class, () -> gameDataAccess.updateGame(updatedGame.gameID(), updatedGame));
     }
+
+    @Test
+    @DisplayName("Create Many Games in One Batch")
+    public void createGamesSuccess() throws Exception {
+        GameData otherGame = new GameData(null, null, "black", "other", new ChessGame());
+        gameDataAccess.createGames(List.of(goodGame, otherGame));
+        ArrayList<GameData> storedList = gameDataAccess.listGames();
+        Assertions.assertEquals(2, storedList.size());
+        Assertions.assertEquals(goodGame.gameName(), gameDataAccess.getGame(1).gameName());
+        Assertions.assertEquals(otherGame.gameName(), gameDataAccess.getGame(2).gameName());
+    }
+
+    @Test
+    @DisplayName("Create Games Failure - one bad game stores none")
+    public void createGamesFailure() throws Exception {
+        GameData badGame = new GameData(null, "white", null, null, new ChessGame());
+        Assertions.assertThrows(DataAccessException.class,
+                () -> gameDataAccess.createGames(List.of(goodGame, badGame)));
+        Assertions.assertTrue(gameDataAccess.listGames().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Update Many Games in One Batch")
+    public void updateGamesSuccess() throws Exception {
+        GameData otherGame = new GameData(null, null, "black", "other", new ChessGame());
+        gameDataAccess.createGames(List.of(goodGame, otherGame));
+        GameData firstUpdate = new GameData(1, goodGame.whiteUsername(), "black", goodGame.gameName(), new ChessGame());
+        GameData secondUpdate = new GameData(2, "white", otherGame.blackUsername(), otherGame.gameName(), new ChessGame());
+        gameDataAccess.updateGames(List.of(firstUpdate, secondUpdate));
+        Assertions.assertEquals(firstUpdate, gameDataAccess.getGame(1));
+        Assertions.assertEquals(secondUpdate, gameDataAccess.getGame(2));
+    }
+
+    @Test
+    @DisplayName("Update Games Failure - one bad game updates none")
+    public void updateGamesFailure() throws Exception {
+        gameDataAccess.createGames(List.of(goodGame, goodGame));
+        GameData goodUpdate = new GameData(1, goodGame.whiteUsername(), "black", goodGame.gameName(), goodGame.game());
+        GameData badUpdate = new GameData(2, goodGame.whiteUsername(), "black", null, goodGame.game());
+        Assertions.assertThrows(DataAccessException.class,
+                () -> gameDataAccess.updateGames(List.of(goodUpdate, badUpdate)));
+        Assertions.assertNull(gameDataAccess.getGame(1).blackUsername());
+    }
 }
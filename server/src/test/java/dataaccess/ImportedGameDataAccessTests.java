@@ -0,0 +1,47 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.junit.jupiter.api.*;
+
+import java.util.List;
+
+public class ImportedGameDataAccessTests {
+    static private ImportedGameDAO importedGameDataAccess;
+    static private GameDAO gameDataAccess;
+
+    @BeforeAll
+    public static void init() throws DataAccessException {
+        importedGameDataAccess = new MySqlImportedGameDAO();
+        gameDataAccess = new MySqlGameDAO();
+    }
+
+    GameData goodGame = new GameData(null, null, null, "Alice vs Bob", new ChessGame());
+
+    @BeforeEach
+    public void clearState() throws Exception {
+        importedGameDataAccess.clear();
+        gameDataAccess.clear();
+    }
+
+    @Test
+    @DisplayName("Imported Games Stay Out of the Lobby")
+    public void createGamesSuccess() throws Exception {
+        GameData otherGame = new GameData(null, null, null, "Carol vs Dave", new ChessGame());
+        importedGameDataAccess.createGames(List.of(goodGame, otherGame));
+        Assertions.assertEquals(2, importedGameDataAccess.countGames());
+        Assertions.assertEquals(goodGame.gameName(), importedGameDataAccess.getGame(1).gameName());
+        Assertions.assertEquals(otherGame.game(), importedGameDataAccess.getGame(2).game());
+        Assertions.assertTrue(gameDataAccess.listGames().isEmpty());
+        Assertions.assertNull(gameDataAccess.getGame(1));
+    }
+
+    @Test
+    @DisplayName("Create Imported Games Failure - one bad game stores none")
+    public void createGamesFailure() throws Exception {
+        GameData badGame = new GameData(null, null, null, null, new ChessGame());
+        Assertions.assertThrows(DataAccessException.class,
+                () -> importedGameDataAccess.createGames(List.of(goodGame, badGame)));
+        Assertions.assertEquals(0, importedGameDataAccess.countGames());
+    }
+}
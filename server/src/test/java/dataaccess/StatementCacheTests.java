@@ -0,0 +1,142 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class StatementCacheTests {
+    private static final String GET_AUTH = "SELECT authToken, username FROM auth where authToken=?";
+    private static final String GET_GAME = "SELECT * FROM games WHERE gameID=?";
+
+    @Test
+    @DisplayName("Closed Statements are Reused")
+    public void reusesStatements() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        StatementCache cache = new StatementCache(connection.proxy, 4);
+        for (int i = 0; i < 100; i++) {
+            try (PreparedStatement statement = cache.prepare(GET_AUTH, Statement.NO_GENERATED_KEYS)) {
+                statement.setString(1, "token");
+                statement.executeQuery();
+            }
+        }
+        Assertions.assertEquals(1, connection.prepared.size());
+        Assertions.assertFalse(connection.prepared.get(0).closed.get());
+        Assertions.assertEquals(100, connection.prepared.get(0).clearedParameters);
+    }
+
+    @Test
+    @DisplayName("Same SQL in Use Twice Gets Two Statements")
+    public void sameSqlAtOnce() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        StatementCache cache = new StatementCache(connection.proxy, 4);
+        PreparedStatement first = cache.prepare(GET_GAME, Statement.NO_GENERATED_KEYS);
+        PreparedStatement second = cache.prepare(GET_GAME, Statement.NO_GENERATED_KEYS);
+        Assertions.assertEquals(2, connection.prepared.size());
+        first.close();
+        second.close();
+        Assertions.assertEquals(1, cache.size(), "Only one statement per SQL should be kept");
+        Assertions.assertEquals(1, connection.prepared.stream().filter(fake -> fake.closed.get()).count());
+
+        //Asking for generated keys is a different statement
+        cache.prepare(GET_GAME, Statement.RETURN_GENERATED_KEYS).close();
+        Assertions.assertEquals(3, connection.prepared.size());
+    }
+
+    @Test
+    @DisplayName("Least Recently Used Statements are Closed")
+    public void evictsLeastRecentlyUsed() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        StatementCache cache = new StatementCache(connection.proxy, 2);
+        cache.prepare("SELECT 1", Statement.NO_GENERATED_KEYS).close();
+        cache.prepare("SELECT 2", Statement.NO_GENERATED_KEYS).close();
+        cache.prepare("SELECT 1", Statement.NO_GENERATED_KEYS).close();
+        cache.prepare("SELECT 3", Statement.NO_GENERATED_KEYS).close();
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(connection.prepared.get(1).closed.get(), "SELECT 2 was used least recently");
+        Assertions.assertFalse(connection.prepared.get(0).closed.get());
+
+        cache.close();
+        Assertions.assertTrue(connection.prepared.stream().allMatch(fake -> fake.closed.get()));
+    }
+
+    @Test
+    @DisplayName("Returned Statement Can't Be Used")
+    public void statementIsInvalidAfterClose() throws Exception {
+        StatementCache cache = new StatementCache(new FakeConnection().proxy, 2);
+        PreparedStatement statement = cache.prepare(GET_AUTH, Statement.NO_GENERATED_KEYS);
+        statement.close();
+        Assertions.assertTrue(statement.isClosed());
+        Assertions.assertThrows(SQLException.class, statement::executeQuery);
+    }
+
+    @Test
+    @DisplayName("Pooled Connections Keep Their Statements")
+    public void poolKeepsStatements() throws Exception {
+        FakeConnection physical = new FakeConnection();
+        var settings = new ConnectionPool.Settings(0, 1, 100, 60_000, 0, 8);
+        try (ConnectionPool pool = new ConnectionPool(() -> physical.proxy, settings)) {
+            for (int i = 0; i < 10; i++) {
+                try (Connection connection = pool.getConnection();
+                     PreparedStatement statement = connection.prepareStatement(GET_AUTH)) {
+                    statement.executeQuery();
+                }
+            }
+            Assertions.assertEquals(1, physical.prepared.size());
+        }
+        Assertions.assertTrue(physical.prepared.get(0).closed.get(), "Closing the pool should close statements");
+    }
+
+    //Just enough of a Connection to prepare statements on
+    private static class FakeConnection {
+        final List<FakeStatement> prepared = new ArrayList<>();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final Connection proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (self, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> {
+                        FakeStatement statement = new FakeStatement();
+                        prepared.add(statement);
+                        yield statement.proxy;
+                    }
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> closed.get();
+                    case "isValid" -> !closed.get();
+                    case "getAutoCommit" -> true;
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> null;
+                });
+    }
+
+    private static class FakeStatement {
+        final AtomicBoolean closed = new AtomicBoolean();
+        int clearedParameters;
+        final PreparedStatement proxy = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+                (self, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> closed.get();
+                    case "clearParameters" -> {
+                        clearedParameters++;
+                        yield null;
+                    }
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> null;
+                });
+    }
+}
@@ -33,9 +33,9 @@ public class UserDataAccessTests {
     public void createUserSuccess() throws Exception {
         userDataAccess.createUser(goodUser);
         var queryStatement = "SELECT username, password, email FROM users WHERE username=?";
-        var rs = baseDataAccess.performQuery(queryStatement, goodUser.username());
-        Assertions.assertTrue(rs.next());
-        var storedUser = new UserData(rs.getString("username"), rs.getString("password"), rs.getString("email"));
+        var storedUser = baseDataAccess.queryOne(queryStatement, rs -> new UserData(rs.getString("username"),
+                rs.getString("password"), rs.getString("email")), goodUser.username());
+        Assertions.assertNotNull(storedUser);
         Assertions.assertEquals(goodUser.username(), storedUser.username());
         Assertions.assertTrue(BCrypt.checkpw(goodUser.password(), storedUser.password()));
         Assertions.assertEquals(goodUser.email(), storedUser.email());
@@ -0,0 +1,71 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.ImportedGameDAO;
+import dataaccess.MemoryImportedGameDAO;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameImportServiceTests {
+    private static final String SCHOLARS_MATE = """
+            [Event "Club Night"]
+            [White "Alice"]
+            [Black "Bob"]
+
+            1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0
+
+            """;
+    private static final String ILLEGAL = """
+            [White "Carol"]
+            [Black "Dave"]
+
+            1. e4 e5 2. Ke3 *
+
+            """;
+
+    @Test
+    @DisplayName("Imports Legal Games and Skips the Rest")
+    public void importGames(@TempDir Path tempDir) throws Exception {
+        Path pgn = tempDir.resolve("games.pgn");
+        Files.writeString(pgn, SCHOLARS_MATE.repeat(25) + ILLEGAL + SCHOLARS_MATE.repeat(25));
+        ImportedGameDAO gameDataAccess = new MemoryImportedGameDAO();
+
+        GameImportService.ImportResult result = new GameImportService(gameDataAccess, 3, 7).importGames(pgn);
+
+        Assertions.assertEquals(new GameImportService.ImportResult(50, 1), result);
+        Assertions.assertEquals(50, gameDataAccess.countGames());
+        GameData game = gameDataAccess.getGame(1);
+        Assertions.assertEquals("Alice vs Bob (Club Night)", game.gameName());
+        Assertions.assertNull(game.whiteUsername());
+        Assertions.assertTrue(game.game().isInCheckmate(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Stops Reading at the First Failed Batch")
+    public void stopsOnFailure(@TempDir Path tempDir) throws Exception {
+        Path pgn = tempDir.resolve("games.pgn");
+        Files.writeString(pgn, SCHOLARS_MATE.repeat(1000));
+        AtomicInteger attempts = new AtomicInteger();
+        ImportedGameDAO gameDataAccess = new MemoryImportedGameDAO() {
+            @Override
+            public void createGames(List<GameData> newGames) {
+                attempts.incrementAndGet();
+                throw new RuntimeException("Database is down");
+            }
+        };
+
+        GameImportService importer = new GameImportService(gameDataAccess, 2, 1);
+        RuntimeException error = Assertions.assertThrows(RuntimeException.class, () -> importer.importGames(pgn));
+        Assertions.assertEquals("Database is down", error.getMessage());
+        //At most the batches already running or queued when the first one failed
+        Assertions.assertTrue(attempts.get() < 10, "Tried to store " + attempts.get() + " batches");
+    }
+}
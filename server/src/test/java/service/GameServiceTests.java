@@ -144,4 +144,28 @@ public class GameServiceTests {
                 gameService.joinGame(new JoinGameRequest("WHITE", 1), "authToken"));
         Assertions.assertEquals("Error: already taken", ex.getMessage());
     }
+
+    @Test
+    @DisplayName("Successfully Add the Computer to a Game")
+    public void addEngineSuccess() throws Exception {
+        authDataAccess.createAuth(new AuthData("authToken", "testUser"));
+        ChessGame game = new ChessGame();
+        gameDataAccess.createGame(new GameData(1, "testUser", null, "name", game));
+
+        gameService.addEnginePlayer(new JoinGameRequest("BLACK", 1), "authToken");
+
+        Assertions.assertEquals(new GameData(1, "testUser", EngineService.ENGINE_USERNAME, "name", game),
+                gameDataAccess.getGame(1));
+    }
+
+    @Test
+    @DisplayName("Attempt to add the computer to a taken seat")
+    public void addEngineSeatTaken() throws Exception {
+        authDataAccess.createAuth(new AuthData("authToken", "testUser"));
+        gameDataAccess.createGame(new GameData(1, "testUser", null, "name", new ChessGame()));
+
+        Exception ex = Assertions.assertThrows(RedundantDataException.class, () ->
+                gameService.addEnginePlayer(new JoinGameRequest("WHITE", 1), "authToken"));
+        Assertions.assertEquals("Error: already taken", ex.getMessage());
+    }
 }
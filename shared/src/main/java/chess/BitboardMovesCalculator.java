@@ -0,0 +1,22 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Adapts {@link MoveGenerator} to the PieceMovesCalculator interface, turning its packed moves into ChessMoves.
+ */
+public class BitboardMovesCalculator implements PieceMovesCalculator {
+
+    @Override
+    public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition position, ChessPiece piece) {
+        MoveList packedMoves = new MoveList();
+        MoveGenerator.generatePieceMoves(board, Bitboards.square(position), packedMoves);
+
+        Collection<ChessMove> moves = new ArrayList<>(packedMoves.size());
+        for (int i = 0; i < packedMoves.size(); i++) {
+            moves.add(PackedMove.toChessMove(packedMoves.get(i)));
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,55 @@
+package chess;
+
+/**
+ * Helpers for the bitboard side of the board representation.
+ * <p>
+ * Squares are numbered 0-63 starting at a1 (row 1, column 1) and going across
+ * each row, so h1 is 7 and h8 is 63. Bit n of a bitboard is set when square n
+ * is occupied.
+ */
+public final class Bitboards {
+    public static final int SQUARES = 64;
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-indexed row of a square, matching ChessPosition
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-indexed column of a square, matching ChessPosition
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @return the shared ChessPosition for a square
+     */
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(row(square), column(square));
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Index of a colour/type pair into the twelve piece bitboards
+     */
+    public static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+}
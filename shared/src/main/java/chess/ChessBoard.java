@@ -12,8 +12,60 @@ import java.util.Objects;
 public class ChessBoard {
     private final ChessPiece[][] squares = new ChessPiece[8][8];
 
+    //Bitboard index kept in sync with squares. It's transient so the JSON format doesn't change, and it's rebuilt
+    //whenever squares gets swapped out from under us (e.g. by Gson deserialization)
+    private transient ChessPiece[][] indexedSquares;
+    private transient long[] pieceBitboards;
+    private transient long[] colorBitboards;
+    private transient long occupied;
+    private transient long zobristKey;
+    //White-minus-black piece-square totals for the evaluation (see Evaluation), updated the same way as the key
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int gamePhase;
+
+    //Undo records for makeMove/unmakeMove, one slot per ply. These are parallel arrays rather than record objects so
+    //making and unmaking a move doesn't allocate anything once the stack has grown to the search depth
+    private static final int INITIAL_UNDO_CAPACITY = 128;
+    private transient int[] undoFrom;
+    private transient int[] undoTo;
+    private transient ChessPiece[] undoMoved;
+    private transient ChessPiece[] undoCaptured;
+    private transient int[] undoFlags;
+    private transient int undoCount;
+
+    //Special move flags stored with each undo record
+    static final int FLAG_PROMOTION = 1;
+    static final int FLAG_CASTLING = 2;
+    static final int FLAG_EN_PASSANT = 4;
+
     public ChessBoard() {
+        rebuildIndex();
+    }
 
+    private ChessBoard(ChessBoard other) {
+        other.ensureIndexed();
+        for (int row = 0; row < squares.length; row++) {
+            System.arraycopy(other.squares[row], 0, squares[row], 0, squares[row].length);
+        }
+        pieceBitboards = other.pieceBitboards.clone();
+        colorBitboards = other.colorBitboards.clone();
+        occupied = other.occupied;
+        zobristKey = other.zobristKey;
+        middlegameScore = other.middlegameScore;
+        endgameScore = other.endgameScore;
+        gamePhase = other.gamePhase;
+        indexedSquares = squares;
+    }
+
+    /**
+     * Copies the pieces on the board along with the bitboard index, so the copy is ready to use without a rescan.
+     * The undo history is not copied.
+     *
+     * @return an independent copy of this board
+     */
+    public ChessBoard copy() {
+        return new ChessBoard(this);
     }
 
     /**
@@ -23,12 +75,130 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        //I'm subtracting 1 to mimic a 1-indexed 2D array like the tests use
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        ensureIndexed();
+        putPiece(Bitboards.square(position), piece);
     }
 
     public void removePiece(ChessPosition position) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = null;
+        ensureIndexed();
+        putPiece(Bitboards.square(position), null);
+    }
+
+    /**
+     * Moves a piece on the board, capturing anything on the end square and promoting if the move says to. The board
+     * remembers what it changed so that {@link #unmakeMove()} can put it back exactly. This does not check that the
+     * move is legal.
+     *
+     * @param move the move to make
+     */
+    public void makeMove(ChessMove move) {
+        makeMove(PackedMove.encode(move));
+    }
+
+    /**
+     * Same as {@link #makeMove(ChessMove)} for a move packed by {@link PackedMove}. Castling and en passant are made
+     * when the move has the matching flag.
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int moveFlags = PackedMove.flags(move);
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        ensureIndexed();
+        if (undoFrom == null || undoCount == undoFrom.length) {
+            growUndoStack();
+        }
+        ChessPiece moved = getPiece(from);
+        ChessPiece captured = getPiece(to);
+        int flags = 0;
+
+        ChessPiece placed = moved;
+        if (promotion != null) {
+            placed = ChessPiece.of(moved.getTeamColor(), promotion);
+            flags |= FLAG_PROMOTION;
+        }
+        if ((moveFlags & PackedMove.EN_PASSANT) != 0) {
+            int capturedSquare = enPassantCaptureSquare(from, to);
+            captured = getPiece(capturedSquare);
+            putPiece(capturedSquare, null);
+            flags |= FLAG_EN_PASSANT;
+        } else if ((moveFlags & PackedMove.CASTLING) != 0) {
+            moveCastlingRook(from, to, false);
+            flags |= FLAG_CASTLING;
+        }
+
+        undoFrom[undoCount] = from;
+        undoTo[undoCount] = to;
+        undoMoved[undoCount] = moved;
+        undoCaptured[undoCount] = captured;
+        undoFlags[undoCount] = flags;
+        undoCount++;
+
+        putPiece(from, null);
+        putPiece(to, placed);
+    }
+
+    /**
+     * Takes back the most recent move made with {@link #makeMove(ChessMove)}
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        ensureIndexed();
+        undoCount--;
+        int from = undoFrom[undoCount];
+        int to = undoTo[undoCount];
+        int flags = undoFlags[undoCount];
+
+        if ((flags & FLAG_EN_PASSANT) != 0) {
+            putPiece(to, null);
+            putPiece(enPassantCaptureSquare(from, to), undoCaptured[undoCount]);
+        } else {
+            putPiece(to, undoCaptured[undoCount]);
+        }
+        putPiece(from, undoMoved[undoCount]);
+        if ((flags & FLAG_CASTLING) != 0) {
+            moveCastlingRook(from, to, true);
+        }
+        undoMoved[undoCount] = null;
+        undoCaptured[undoCount] = null;
+    }
+
+    //The pawn taken en passant is beside the capturing pawn's start square, on the file it moves to
+    private static int enPassantCaptureSquare(int from, int to) {
+        return (from & ~7) | (to & 7);
+    }
+
+    //Castling moves the king two squares; the rook jumps from the corner to the square the king passed over
+    private void moveCastlingRook(int kingFrom, int kingTo, boolean undo) {
+        boolean kingside = kingTo > kingFrom;
+        int rookFrom = kingside ? kingFrom + 3 : kingFrom - 4;
+        int rookTo = kingside ? kingFrom + 1 : kingFrom - 1;
+        if (undo) {
+            putPiece(rookFrom, getPiece(rookTo));
+            putPiece(rookTo, null);
+        } else {
+            putPiece(rookTo, getPiece(rookFrom));
+            putPiece(rookFrom, null);
+        }
+    }
+
+    private void growUndoStack() {
+        int capacity = undoFrom == null ? INITIAL_UNDO_CAPACITY : undoFrom.length * 2;
+        undoFrom = undoFrom == null ? new int[capacity] : Arrays.copyOf(undoFrom, capacity);
+        undoTo = undoTo == null ? new int[capacity] : Arrays.copyOf(undoTo, capacity);
+        undoFlags = undoFlags == null ? new int[capacity] : Arrays.copyOf(undoFlags, capacity);
+        undoMoved = undoMoved == null ? new ChessPiece[capacity] : Arrays.copyOf(undoMoved, capacity);
+        undoCaptured = undoCaptured == null ? new ChessPiece[capacity] : Arrays.copyOf(undoCaptured, capacity);
+    }
+
+    private void putPiece(int square, ChessPiece piece) {
+        clearBits(square, getPiece(square));
+        setBits(square, piece);
+        squares[square >>> 3][square & 7] = piece;
     }
 
     /**
@@ -43,6 +213,37 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets a chess piece by its 0-63 square index (see {@link Bitboards})
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square >>> 3][square & 7];
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given colour and type
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        ensureIndexed();
+        return pieceBitboards[Bitboards.pieceIndex(color, type)];
+    }
+
+    /**
+     * @return bitboard of every square holding a piece of the given colour
+     */
+    public long getPieces(ChessGame.TeamColor color) {
+        ensureIndexed();
+        return colorBitboards[color.ordinal()];
+    }
+
+    /**
+     * @return bitboard of every occupied square
+     */
+    public long getOccupied() {
+        ensureIndexed();
+        return occupied;
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -57,21 +258,140 @@ public class ChessBoard {
         //Place new pieces
         //First the pawns
         for (int col = 0; col < squares[1].length; col++) {
-            squares[1][col] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+            squares[1][col] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         }
         for (int col = 0; col < squares[6].length; col++) {
-            squares[6][col] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+            squares[6][col] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
         }
         //Now the rest of the pieces
         ChessPiece.PieceType[] piecePattern = {ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT,
                 ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING,
                 ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK};
         for (int col = 0; col < squares[0].length; col++) {
-            squares[0][col] = new ChessPiece(ChessGame.TeamColor.WHITE, piecePattern[col]);
+            squares[0][col] = ChessPiece.of(ChessGame.TeamColor.WHITE, piecePattern[col]);
         }
         for (int col = 0; col < squares[7].length; col++) {
-            squares[7][col] = new ChessPiece(ChessGame.TeamColor.BLACK, piecePattern[col]);
+            squares[7][col] = ChessPiece.of(ChessGame.TeamColor.BLACK, piecePattern[col]);
+        }
+        rebuildIndex();
+    }
+
+    /**
+     * @return the Zobrist hash of the pieces on the board (see {@link Zobrist}). Side to move, castling rights and
+     * the en passant square are not part of the board, so ChessGame.getPositionKey adds them.
+     */
+    public long getZobristKey() {
+        ensureIndexed();
+        return zobristKey;
+    }
+
+    /**
+     * @return the sum of the middlegame piece-square scores, white minus black
+     */
+    public int getMiddlegameScore() {
+        ensureIndexed();
+        return middlegameScore;
+    }
+
+    /**
+     * @return the sum of the endgame piece-square scores, white minus black
+     */
+    public int getEndgameScore() {
+        ensureIndexed();
+        return endgameScore;
+    }
+
+    /**
+     * @return how much non-pawn material is on the board, from {@link Evaluation#MAX_PHASE} at the start down to 0
+     */
+    public int getGamePhase() {
+        ensureIndexed();
+        return gamePhase;
+    }
+
+    /**
+     * @return the 0-63 square of the given team's king, or -1 if it has no king on the board
+     */
+    public int getKingSquare(ChessGame.TeamColor color) {
+        long king = getPieces(color, ChessPiece.PieceType.KING);
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * Determines if any piece of the given team attacks a square. Rather than generating the attacker's moves this
+     * looks outward from the square: a knight jump, pawn diagonal, king step or open ray that lands on a matching
+     * attacker means the square is attacked.
+     *
+     * @param square   the 0-63 square to test
+     * @param attacker the team that might be attacking it
+     * @return True if the square is attacked
+     */
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        ensureIndexed();
+        int side = attacker.ordinal() * 6;
+        long pawns = pieceBitboards[side + ChessPiece.PieceType.PAWN.ordinal()];
+        long knights = pieceBitboards[side + ChessPiece.PieceType.KNIGHT.ordinal()];
+        long bishops = pieceBitboards[side + ChessPiece.PieceType.BISHOP.ordinal()];
+        long rooks = pieceBitboards[side + ChessPiece.PieceType.ROOK.ordinal()];
+        long queens = pieceBitboards[side + ChessPiece.PieceType.QUEEN.ordinal()];
+        long king = pieceBitboards[side + ChessPiece.PieceType.KING.ordinal()];
+        //A pawn attacks this square exactly when a defending pawn here would attack the pawn's square
+        ChessGame.TeamColor defender = ChessGame.opposingTeam(attacker);
+
+        return (AttackTables.pawnAttacks(defender, square) & pawns) != 0
+                || (AttackTables.knightAttacks(square) & knights) != 0
+                || (AttackTables.kingAttacks(square) & king) != 0
+                || (AttackTables.bishopAttacks(square, occupied) & (bishops | queens)) != 0
+                || (AttackTables.rookAttacks(square, occupied) & (rooks | queens)) != 0;
+    }
+
+    private void ensureIndexed() {
+        if (indexedSquares != squares) {
+            rebuildIndex();
+        }
+    }
+
+    private void rebuildIndex() {
+        pieceBitboards = new long[12];
+        colorBitboards = new long[2];
+        occupied = 0L;
+        zobristKey = 0L;
+        middlegameScore = 0;
+        endgameScore = 0;
+        gamePhase = 0;
+        undoCount = 0;
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            setBits(square, getPiece(square));
+        }
+        indexedSquares = squares;
+    }
+
+    private void setBits(int square, ChessPiece piece) {
+        if (piece == null) {
+            return;
+        }
+        long bit = Bitboards.bit(square);
+        pieceBitboards[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())] |= bit;
+        colorBitboards[piece.getTeamColor().ordinal()] |= bit;
+        occupied |= bit;
+        zobristKey ^= Zobrist.pieceKey(piece, square);
+        middlegameScore += Evaluation.middlegameScore(piece, square);
+        endgameScore += Evaluation.endgameScore(piece, square);
+        gamePhase += Evaluation.phaseWeight(piece.getPieceType());
+    }
+
+    private void clearBits(int square, ChessPiece piece) {
+        if (piece == null) {
+            return;
         }
+        long bit = ~Bitboards.bit(square);
+        pieceBitboards[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())] &= bit;
+        colorBitboards[piece.getTeamColor().ordinal()] &= bit;
+        occupied &= bit;
+        zobristKey ^= Zobrist.pieceKey(piece, square);
+        middlegameScore -= Evaluation.middlegameScore(piece, square);
+        endgameScore -= Evaluation.endgameScore(piece, square);
+        gamePhase -= Evaluation.phaseWeight(piece.getPieceType());
     }
 
     @Override
@@ -88,6 +408,6 @@ public class ChessBoard {
 
     @Override
     public int hashCode() {
-        return 79 * Arrays.deepHashCode(squares);
+        return Long.hashCode(getZobristKey());
     }
 }
@@ -1,7 +1,10 @@
 package chess;
 
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.Objects;
 
 /**
@@ -9,16 +12,106 @@ import java.util.Objects;
  * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
+ * <p>
+ * Games are stored and sent as JSON by {@link ChessGameJsonAdapter}, which writes the position as FEN.
  */
+@JsonAdapter(ChessGameJsonAdapter.class)
 public class ChessGame {
-    private ChessBoard gameBoard = new ChessBoard();
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    //Castling rights, one bit for each king and side of the board
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int ALL_CASTLING = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+    static final int NO_EN_PASSANT = -1;
+
+    //A draw can be claimed after fifty moves by each side without a capture or pawn move
+    private static final int FIFTY_MOVE_PLIES = 100;
+    //The castling rights that survive a move from or to each square. Moving a king or rook, or having a rook
+    //captured, loses the rights that depend on it
+    private static final int[] CASTLING_KEPT = new int[Bitboards.SQUARES];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ALL_CASTLING);
+        CASTLING_KEPT[Bitboards.square(1, 5)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[Bitboards.square(1, 8)] &= ~WHITE_KINGSIDE;
+        CASTLING_KEPT[Bitboards.square(1, 1)] &= ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[Bitboards.square(8, 5)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[Bitboards.square(8, 8)] &= ~BLACK_KINGSIDE;
+        CASTLING_KEPT[Bitboards.square(8, 1)] &= ~BLACK_QUEENSIDE;
+    }
+
+    private ChessBoard gameBoard;
     private TeamColor currentTeam = TeamColor.WHITE;
     private GameState currentState = GameState.IN_PROGRESS;
+    private int castlingRights = ALL_CASTLING;
+    //The square a pawn that just moved two squares can be taken on, or -1. It's only set when an enemy pawn is
+    //actually there to take it, so positions that differ only in a useless en passant square count as repeats
+    private int enPassantSquare = NO_EN_PASSANT;
+    //Plies since the last capture or pawn move
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    //The position key before each move, for finding repetitions without keeping old boards around
+    private long[] keyHistory;
+    private int historyLength;
+    //The castling rights, en passant square and clock before each move, packed by packState, for unmakeMove
+    private transient int[] undoStates;
+    private transient int undoCount;
+    //Scratch space for move generation, reused between calls
+    private transient MoveList moveBuffer;
 
     public ChessGame() {
+        gameBoard = new ChessBoard();
         gameBoard.resetBoard();
     }
 
+    ChessGame(ChessBoard board, TeamColor teamTurn) {
+        setBoard(board);
+        currentTeam = teamTurn;
+    }
+
+    private ChessGame(ChessGame other) {
+        gameBoard = other.gameBoard.copy();
+        currentTeam = other.currentTeam;
+        currentState = other.currentState;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        keyHistory = other.keyHistory == null ? null : Arrays.copyOf(other.keyHistory, other.historyLength);
+        historyLength = other.historyLength;
+    }
+
+    /**
+     * Sets up a game from a position in Forsyth-Edwards Notation, e.g. {@link #START_FEN}. Only the piece placement
+     * and side to move are required.
+     *
+     * @param fen the position to load
+     * @return a new game in that position, with no earlier moves to repeat
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        return Fen.parse(fen);
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.write(this);
+    }
+
+    /**
+     * Copies the game so it can be searched or played on independently, e.g. on another thread
+     *
+     * @return an independent copy of this game
+     */
+    public ChessGame copy() {
+        return new ChessGame(this);
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -37,12 +130,87 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         currentTeam = team;
+        historyLength = 0;
     }
 
     public void setGameState(GameState newState) {
         currentState = newState;
     }
 
+    /**
+     * @return how many plies have been played since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    int castlingRights() {
+        return castlingRights;
+    }
+
+    int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights;
+    }
+
+    void setEnPassantSquare(int enPassantSquare) {
+        this.enPassantSquare = enPassantSquare;
+    }
+
+    void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current move, starting at 1 and going up after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * @return the keys of the earlier positions that could still be repeated, oldest first
+     */
+    long[] repeatablePositionKeys() {
+        int count = Math.min(historyLength, halfmoveClock);
+        return count == 0 ? new long[0] : Arrays.copyOfRange(keyHistory, historyLength - count, historyLength);
+    }
+
+    void setRepeatablePositionKeys(long[] keys) {
+        keyHistory = Arrays.copyOf(keys, Math.max(keys.length, 64));
+        historyLength = keys.length;
+    }
+
+    /**
+     * Gets a 64-bit Zobrist hash of the position: the pieces on the board, whose turn it is, the castling rights and
+     * the en passant square. Equal positions always have equal keys, so this is suitable for caches, repetition
+     * checks and transposition tables.
+     *
+     * @return the position's hash key
+     */
+    public long getPositionKey() {
+        long key = positionKey(gameBoard, currentTeam) ^ Zobrist.castlingKey(castlingRights);
+        if (enPassantSquare != NO_EN_PASSANT) {
+            key ^= Zobrist.enPassantKey(enPassantSquare);
+        }
+        return key;
+    }
+
+    static long positionKey(ChessBoard board, TeamColor sideToMove) {
+        long key = board.getZobristKey();
+        if (sideToMove == TeamColor.BLACK) {
+            key ^= Zobrist.SIDE_TO_MOVE;
+        }
+        return key;
+    }
+
     private void nextTurn() {
         if (currentTeam == TeamColor.WHITE) {
             currentTeam = TeamColor.BLACK;
@@ -60,12 +228,13 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return Objects.equals(gameBoard, chessGame.gameBoard) && currentTeam == chessGame.currentTeam;
+        return Objects.equals(gameBoard, chessGame.gameBoard) && currentTeam == chessGame.currentTeam
+                && castlingRights == chessGame.castlingRights && enPassantSquare == chessGame.enPassantSquare;
     }
 
     @Override
     public int hashCode() {
-        return 31 * Objects.hash(gameBoard, currentTeam);
+        return Long.hashCode(getPositionKey());
     }
 
     /**
@@ -92,37 +261,28 @@ public class ChessGame {
         ChessPiece piece = gameBoard.getPiece(startPosition);
 
         if (piece != null) {
-            Collection<ChessMove> moves = piece.pieceMoves(gameBoard, startPosition);
-            Iterator<ChessMove> iterator = moves.iterator();
-            while (iterator.hasNext()) {
-                //Make each possible move and see if it results in putting own king in check
-                ChessMove move = iterator.next();
-
-                gameBoard.removePiece(move.getStartPosition());
-                //Check to see if there's an enemy piece in the end position
-                ChessPiece placeholder = null;
-                if (gameBoard.getPiece(move.getEndPosition()) != null) {
-                    placeholder = gameBoard.getPiece(move.getEndPosition());
-                }
-                gameBoard.addPiece(move.getEndPosition(), piece);
+            MoveList moves = moveBuffer();
+            MoveGenerator.generatePieceMoves(this, Bitboards.square(startPosition), moves);
+            //Remove any move that would leave our own king in check
+            MoveGenerator.removeIllegalMoves(gameBoard, piece.getTeamColor(), moves, 0);
 
-                //Check if move puts own king in check
-                if (isInCheck(piece.getTeamColor())) {
-                    iterator.remove();
-                }
-
-                //Reset game board
-                gameBoard.addPiece(move.getStartPosition(), piece);
-                gameBoard.removePiece(move.getEndPosition());
-                if (placeholder != null) {
-                    gameBoard.addPiece(move.getEndPosition(), placeholder);
-                }
+            Collection<ChessMove> validMoves = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                validMoves.add(PackedMove.toChessMove(moves.get(i)));
             }
-            return moves;
+            return validMoves;
         }
         return null;
     }
 
+    private MoveList moveBuffer() {
+        if (moveBuffer == null) {
+            moveBuffer = new MoveList();
+        }
+        moveBuffer.clear();
+        return moveBuffer;
+    }
+
     /**
      * Makes a move in a chess game
      *
@@ -130,75 +290,146 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        ChessPosition startPosition = move.getStartPosition();
-        ChessPosition endPosition = move.getEndPosition();
-        ChessPiece piece = gameBoard.getPiece(startPosition);
-        Collection<ChessMove> allValid = validMoves(startPosition);
+        ChessPiece piece = gameBoard.getPiece(move.getStartPosition());
 
         if (piece != null && currentTeam == piece.getTeamColor()) {
-            //Only make the move if it's a valid move
-            if (allValid.contains(move)) {
-                //Check for promotion
-                if (move.getPromotionPiece() != null) {
-                    piece = new ChessPiece(piece.getTeamColor(), move.getPromotionPiece());
+            //Only make the move if it's a valid move. The generated move also says whether it castles or takes en
+            //passant, which the ChessMove doesn't
+            MoveList moves = moveBuffer();
+            MoveGenerator.generatePieceMoves(this, Bitboards.square(move.getStartPosition()), moves);
+            MoveGenerator.removeIllegalMoves(gameBoard, currentTeam, moves, 0);
+            int requested = PackedMove.encode(move);
+            for (int i = 0; i < moves.size(); i++) {
+                if (PackedMove.withoutFlags(moves.get(i)) == requested) {
+                    makeMove(moves.get(i));
+                    return;
                 }
-
-                gameBoard.addPiece(endPosition, piece);
-                gameBoard.removePiece(startPosition);
-                nextTurn();
-                return;
             }
         }
         throw new InvalidMoveException();
     }
 
     /**
-     * Determines if the given team is in check
-     *
-     * @param teamColor which team to check for check
-     * @return True if the specified team is in check
+     * Makes a packed move and passes the turn without checking that the move is legal, keeping the castling
+     * rights, en passant square, clock and repetition history up to date. Engine code uses this on moves that came
+     * from the move generator, and takes them back with {@link #unmakeMove()}.
      */
-    public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition currentKing = null;
-        //Find the current king
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition square = new ChessPosition(row, col);
-                ChessPiece piece = gameBoard.getPiece(square);
-                if (piece != null && piece.getTeamColor() == teamColor &&
-                        piece.getPieceType() == ChessPiece.PieceType.KING) {
-                    currentKing = square;
-                }
-            }
+    void makeMove(int move) {
+        if (undoStates == null || undoCount == undoStates.length) {
+            undoStates = undoStates == null ? new int[64] : Arrays.copyOf(undoStates, Math.max(64, undoCount * 2));
         }
-        ;
-
-        //Loop through each square and see if any of the opposite team can capture current king
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition square = new ChessPosition(row, col);
-                ChessPiece piece = gameBoard.getPiece(square);
-                if (isEnemyPiece(piece, teamColor) && canCaptureKing(piece, square, currentKing)) {
-                    return true;
-                }
+        undoStates[undoCount++] = packState();
+        recordPosition();
+
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        boolean pawnMove = gameBoard.getPiece(from).getPieceType() == ChessPiece.PieceType.PAWN;
+        boolean capture = gameBoard.getPiece(to) != null || (PackedMove.flags(move) & PackedMove.EN_PASSANT) != 0;
+        gameBoard.makeMove(move);
+
+        castlingRights &= CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        halfmoveClock = pawnMove || capture ? 0 : halfmoveClock + 1;
+        enPassantSquare = NO_EN_PASSANT;
+        if (pawnMove && Math.abs(to - from) == 16) {
+            int passed = (from + to) / 2;
+            //The same trick as isSquareAttacked: enemy pawns that could take here sit where our pawn would attack
+            long takers = AttackTables.pawnAttacks(currentTeam, passed)
+                    & gameBoard.getPieces(opposingTeam(currentTeam), ChessPiece.PieceType.PAWN);
+            if (takers != 0) {
+                enPassantSquare = passed;
             }
         }
-        ;
-        return Boolean.FALSE;
+        if (currentTeam == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        nextTurn();
     }
 
-    private boolean isEnemyPiece(ChessPiece piece, TeamColor pieceColor) {
-        return piece != null && piece.getTeamColor() != pieceColor;
+    /**
+     * Takes back the last move made with {@link #makeMove(int)}
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    void unmakeMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        gameBoard.unmakeMove();
+        int state = undoStates[--undoCount];
+        castlingRights = state & ALL_CASTLING;
+        enPassantSquare = ((state >>> 4) & 0x7F) - 1;
+        halfmoveClock = state >>> 11;
+        historyLength--;
+        nextTurn();
+        if (currentTeam == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+    }
+
+    private int packState() {
+        return castlingRights | (enPassantSquare + 1) << 4 | halfmoveClock << 11;
+    }
+
+    private void recordPosition() {
+        if (keyHistory == null || historyLength == keyHistory.length) {
+            keyHistory = keyHistory == null ? new long[64] : Arrays.copyOf(keyHistory, Math.max(64, historyLength * 2));
+        }
+        keyHistory[historyLength++] = getPositionKey();
     }
 
-    private boolean canCaptureKing(ChessPiece piece, ChessPosition position, ChessPosition currentKing) {
-        Collection<ChessMove> possibleMoves = piece.pieceMoves(gameBoard, position);
-        for (ChessMove move : possibleMoves) {
-            if (move.getEndPosition().equals(currentKing)) {
-                return Boolean.TRUE;
+    /**
+     * Determines if the current position has already come up twice with the same player to move, so it has now
+     * been repeated three times
+     *
+     * @return True if the game can be drawn by threefold repetition
+     */
+    public boolean isDrawByRepetition() {
+        return countRepetitions(2) >= 2;
+    }
+
+    /**
+     * @return True if fifty moves by each side have gone by without a capture or pawn move
+     */
+    public boolean isDrawByFiftyMoveRule() {
+        return halfmoveClock >= FIFTY_MOVE_PLIES;
+    }
+
+    /**
+     * @return True if the current position has come up before, which a search can treat as a draw
+     */
+    boolean isRepetition() {
+        return countRepetitions(1) >= 1;
+    }
+
+    //Only positions since the last capture or pawn move can repeat, and only every other one has the same side to move
+    private int countRepetitions(int enough) {
+        long key = getPositionKey();
+        int count = 0;
+        int oldest = Math.max(0, historyLength - halfmoveClock);
+        for (int i = historyLength - 2; i >= oldest; i -= 2) {
+            if (keyHistory[i] == key && ++count >= enough) {
+                break;
             }
         }
-        return false;
+        return count;
+    }
+
+    /**
+     * Determines if the given team is in check
+     *
+     * @param teamColor which team to check for check
+     * @return True if the specified team is in check
+     */
+    public boolean isInCheck(TeamColor teamColor) {
+        int kingSquare = gameBoard.getKingSquare(teamColor);
+        if (kingSquare < 0) {
+            return false;
+        }
+        return gameBoard.isSquareAttacked(kingSquare, opposingTeam(teamColor));
+    }
+
+    static TeamColor opposingTeam(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
@@ -219,25 +450,7 @@ public class ChessGame {
     }
 
     private boolean playerHasNoPossibleMoves(TeamColor teamColor) {
-        for (int row = 1; row <= 8; row++) {
-            for (int col = 1; col <= 8; col++) {
-                ChessPosition square = new ChessPosition(row, col);
-                ChessPiece piece = gameBoard.getPiece(square);
-                if (isFriendlyPiece(piece, teamColor) && pieceHasPossibleMove(square)) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    private boolean isFriendlyPiece(ChessPiece piece, TeamColor teamColor) {
-        return piece != null && piece.getTeamColor() == teamColor;
-    }
-
-    private boolean pieceHasPossibleMove(ChessPosition position) {
-        Collection<ChessMove> possibleMoves = validMoves(position);
-        return possibleMoves != null && !possibleMoves.isEmpty();
+        return !MoveGenerator.hasLegalMove(this, teamColor, moveBuffer());
     }
 
     /**
@@ -261,12 +474,36 @@ public class ChessGame {
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Sets this game's chessboard with a given board. The board has no history, so each king and rook still on its
+     * starting square is taken to keep its castling right, and there's no en passant capture.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         gameBoard = board;
+        castlingRights = castlingRightsFor(board);
+        enPassantSquare = NO_EN_PASSANT;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        historyLength = 0;
+        undoCount = 0;
+    }
+
+    private static int castlingRightsFor(ChessBoard board) {
+        int rights = 0;
+        if (hasPiece(board, 1, 5, TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            rights |= hasPiece(board, 1, 8, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_KINGSIDE : 0;
+            rights |= hasPiece(board, 1, 1, TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_QUEENSIDE : 0;
+        }
+        if (hasPiece(board, 8, 5, TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            rights |= hasPiece(board, 8, 8, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_KINGSIDE : 0;
+            rights |= hasPiece(board, 8, 1, TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_QUEENSIDE : 0;
+        }
+        return rights;
+    }
+
+    private static boolean hasPiece(ChessBoard board, int row, int col, TeamColor color, ChessPiece.PieceType type) {
+        return ChessPiece.of(color, type).equals(board.getPiece(Bitboards.square(row, col)));
     }
 
     /**
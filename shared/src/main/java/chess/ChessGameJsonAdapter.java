@@ -0,0 +1,184 @@
+package chess;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Stores a ChessGame as a small JSON object instead of its whole object graph:
+ * <pre>
+ * {"fen": "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", "state": "FINISHED", "history": [...]}
+ * </pre>
+ * The state is left out while the game is in progress, and the history holds only the position keys that can still
+ * be repeated, so it's empty right after a capture or pawn move. Registered on ChessGame with {@code @JsonAdapter}, so
+ * every Gson instance uses it, including the ones in the passoff tests.
+ * <p>
+ * Games saved before this format have no fen, just Gson's field-by-field dump of the game and its board's squares
+ * array. Those are still read, so existing rows keep loading; they're written back in the new format the next time
+ * they're saved. Their repetition history isn't carried over.
+ */
+final class ChessGameJsonAdapter extends TypeAdapter<ChessGame> {
+    private static final String FEN = "fen";
+    private static final String STATE = "state";
+    private static final String HISTORY = "history";
+    //The fields of the old reflective format
+    private static final String LEGACY_BOARD = "gameBoard";
+    private static final String LEGACY_SQUARES = "squares";
+    private static final String LEGACY_TEAM = "currentTeam";
+    private static final String LEGACY_STATE = "currentState";
+    private static final String LEGACY_CASTLING = "castlingRights";
+    private static final String LEGACY_EN_PASSANT = "enPassantSquare";
+    private static final String LEGACY_HALFMOVE = "halfmoveClock";
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        if (game == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name(FEN).value(game.toFen());
+        if (game.getGameState() != ChessGame.GameState.IN_PROGRESS) {
+            out.name(STATE).value(game.getGameState().name());
+        }
+        long[] history = game.repeatablePositionKeys();
+        if (history.length > 0) {
+            out.name(HISTORY).beginArray();
+            for (long key : history) {
+                out.value(key);
+            }
+            out.endArray();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String fen = null;
+        ChessGame.GameState state = ChessGame.GameState.IN_PROGRESS;
+        long[] history = new long[0];
+        int historyLength = 0;
+        ChessBoard legacyBoard = null;
+        ChessGame.TeamColor legacyTeam = ChessGame.TeamColor.WHITE;
+        Integer legacyCastling = null;
+        int legacyEnPassant = ChessGame.NO_EN_PASSANT;
+        int legacyHalfmove = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case FEN -> fen = in.nextString();
+                case STATE -> state = ChessGame.GameState.valueOf(in.nextString());
+                case HISTORY -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        if (historyLength == history.length) {
+                            history = Arrays.copyOf(history, Math.max(16, historyLength * 2));
+                        }
+                        history[historyLength++] = in.nextLong();
+                    }
+                    in.endArray();
+                }
+                case LEGACY_BOARD -> legacyBoard = readLegacyBoard(in);
+                case LEGACY_TEAM -> legacyTeam = ChessGame.TeamColor.valueOf(in.nextString());
+                case LEGACY_STATE -> state = ChessGame.GameState.valueOf(in.nextString());
+                case LEGACY_CASTLING -> legacyCastling = in.nextInt();
+                case LEGACY_EN_PASSANT -> legacyEnPassant = in.nextInt();
+                case LEGACY_HALFMOVE -> legacyHalfmove = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (fen == null) {
+            if (legacyBoard == null) {
+                throw new JsonParseException("Chess game is missing its " + FEN);
+            }
+            return legacyGame(legacyBoard, legacyTeam, state, legacyCastling, legacyEnPassant, legacyHalfmove);
+        }
+        ChessGame game;
+        try {
+            game = ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            throw new JsonParseException(e.getMessage(), e);
+        }
+        game.setGameState(state);
+        game.setRepeatablePositionKeys(Arrays.copyOf(history, historyLength));
+        return game;
+    }
+
+    private static ChessGame legacyGame(ChessBoard board, ChessGame.TeamColor team, ChessGame.GameState state,
+                                        Integer castlingRights, int enPassantSquare, int halfmoveClock) {
+        //Rights are worked out from the pieces unless the old game had started tracking them itself
+        ChessGame game = new ChessGame(board, team);
+        if (castlingRights != null) {
+            game.setCastlingRights(castlingRights & ChessGame.ALL_CASTLING);
+        }
+        if (enPassantSquare >= 0 && enPassantSquare < Bitboards.SQUARES) {
+            game.setEnPassantSquare(enPassantSquare);
+        }
+        game.setHalfmoveClock(Math.max(0, halfmoveClock));
+        game.setGameState(state);
+        return game;
+    }
+
+    //Reads {"squares": [[piece or null, ...], ...], ...}, rank 1 first, skipping the rest of the old board's fields
+    private static ChessBoard readLegacyBoard(JsonReader in) throws IOException {
+        ChessBoard board = new ChessBoard();
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals(LEGACY_SQUARES)) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            for (int row = 1; in.hasNext(); row++) {
+                in.beginArray();
+                for (int col = 1; in.hasNext(); col++) {
+                    ChessPiece piece = readLegacyPiece(in);
+                    if (piece != null) {
+                        if (row > 8 || col > 8) {
+                            throw new JsonParseException("Chess board has more than 8 ranks or files");
+                        }
+                        board.addPiece(new ChessPosition(row, col), piece);
+                    }
+                }
+                in.endArray();
+            }
+            in.endArray();
+        }
+        in.endObject();
+        return board;
+    }
+
+    private static ChessPiece readLegacyPiece(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        ChessGame.TeamColor color = null;
+        ChessPiece.PieceType type = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                case "type" -> type = ChessPiece.PieceType.valueOf(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        if (color == null || type == null) {
+            throw new JsonParseException("Chess piece is missing its color or type");
+        }
+        return ChessPiece.of(color, type);
+    }
+}
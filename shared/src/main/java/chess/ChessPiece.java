@@ -1,8 +1,12 @@
 package chess;
 
-import java.util.ArrayList;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Objects;
 
 /**
@@ -11,7 +15,20 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPiece.GsonAdapter.class)
 public class ChessPiece {
+    private static final PieceMovesCalculator MOVES_CALCULATOR = new BitboardMovesCalculator();
+    //Pieces are immutable, so there only ever needs to be one of each colour and type
+    private static final ChessPiece[][] PIECES = new ChessPiece[2][6];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal()][type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final PieceType type;
     private final ChessGame.TeamColor pieceColor;
 
@@ -20,6 +37,15 @@ public class ChessPiece {
         this.pieceColor = pieceColor;
     }
 
+    /**
+     * Gets the shared piece of a colour and type
+     *
+     * @return a piece equal to new ChessPiece(pieceColor, type)
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal()][type.ordinal()];
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -72,12 +98,40 @@ public class ChessPiece {
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
         var myPiece = board.getPiece(myPosition);
+        return MOVES_CALCULATOR.pieceMoves(board, myPosition, myPiece);
+    }
+
+    /**
+     * Keeps the default {"type":"PAWN","pieceColor":"WHITE"} JSON format, but reads pieces back as the shared
+     * instances
+     */
+    static class GsonAdapter extends TypeAdapter<ChessPiece> {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.beginObject();
+            out.name("type").value(piece.type.name());
+            out.name("pieceColor").value(piece.pieceColor.name());
+            out.endObject();
+        }
 
-        return switch (myPiece.getPieceType()) {
-            case PieceType.BISHOP, ROOK, QUEEN -> new MovesUntilBlockedCalculator().pieceMoves(board, myPosition, myPiece);
-            case PieceType.KING, KNIGHT -> new MovesOnceCalculator().pieceMoves(board, myPosition, myPiece);
-            case PieceType.PAWN -> new PawnMovesCalculator().pieceMoves(board, myPosition, myPiece);
-        };
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            PieceType type = null;
+            ChessGame.TeamColor color = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type" -> type = PieceType.valueOf(in.nextString());
+                    case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (type == null || color == null) {
+                return new ChessPiece(color, type);
+            }
+            return ChessPiece.of(color, type);
+        }
     }
 
 //    @Override
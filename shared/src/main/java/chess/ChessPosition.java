@@ -1,6 +1,11 @@
 package chess;
 
-import java.util.Objects;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 
 /**
  * Represents a single square position on a chess board
@@ -8,7 +13,18 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPosition.GsonAdapter.class)
 public class ChessPosition {
+    //Positions are immutable, so every square on the board shares one instance
+    private static final ChessPosition[] BOARD_POSITIONS = new ChessPosition[64];
+
+    static {
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                BOARD_POSITIONS[(row - 1) * 8 + (col - 1)] = new ChessPosition(row, col);
+            }
+        }
+    }
 
     private final int row;
     private final int col;
@@ -18,6 +34,18 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * Gets the shared position for a square. Positions off the board aren't cached, so those get a new instance.
+     *
+     * @return a position equal to new ChessPosition(row, col)
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return BOARD_POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -56,6 +84,36 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return 71 * Objects.hash(row, col);
+        //Same value as Objects.hash(row, col), without boxing both ints into a new array
+        return 71 * (31 * (31 + row) + col);
+    }
+
+    /**
+     * Keeps the default {"row":1,"col":1} JSON format, but reads positions back as the shared instances
+     */
+    static class GsonAdapter extends TypeAdapter<ChessPosition> {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            out.beginObject();
+            out.name("row").value(position.row);
+            out.name("col").value(position.col);
+            out.endObject();
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            int row = 0;
+            int col = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "row" -> row = in.nextInt();
+                    case "col" -> col = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return ChessPosition.of(row, col);
+        }
     }
 }
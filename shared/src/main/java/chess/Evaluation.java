@@ -0,0 +1,172 @@
+package chess;
+
+/**
+ * Static evaluation of a position in centipawns from the point of view of the side to move.
+ * <p>
+ * Each piece is worth its material value plus a bonus or penalty for the square it stands on, with separate
+ * middlegame and endgame tables. ChessBoard keeps the white-minus-black sum of both up to date as pieces are added
+ * and removed, along with how much non-pawn material is left (the game phase), so evaluating a position is a
+ * blend of the two sums rather than a scan of the board.
+ * <p>
+ * The tables below are laid out as the board is drawn, with row 8 at the top, from white's point of view; black
+ * uses them mirrored.
+ */
+public final class Evaluation {
+    /**
+     * Game phase with all minor and major pieces on the board; it counts down to 0 as they are traded off
+     */
+    public static final int MAX_PHASE = 24;
+
+    //Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] MIDDLEGAME_VALUES = {0, 900, 330, 320, 500, 100};
+    private static final int[] ENDGAME_VALUES = {0, 900, 320, 300, 520, 120};
+    private static final int[] PHASE_WEIGHTS = {0, 4, 1, 1, 2, 0};
+
+    private static final int[] PAWN_MIDDLEGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    //In the endgame a pawn is worth more the closer it is to promoting
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            15, 15, 15, 15, 15, 15, 15, 15,
+            5, 5, 5, 5, 5, 5, 5, 5,
+            0, 0, 0, 0, 0, 0, 0, 0,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+    private static final int[] ROOK = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+    };
+    private static final int[] QUEEN = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+    };
+    //The king hides behind its pawns while there is material around to attack it...
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+    //...and comes out to the centre once there isn't
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    //Value plus square bonus for every piece on every square, negated for black, indexed [pieceIndex][square]
+    private static final int[][] MIDDLEGAME_SCORES = new int[12][Bitboards.SQUARES];
+    private static final int[][] ENDGAME_SCORES = new int[12][Bitboards.SQUARES];
+
+    static {
+        int[][] middlegameTables = {KING_MIDDLEGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_MIDDLEGAME};
+        int[][] endgameTables = {KING_ENDGAME, QUEEN, BISHOP, KNIGHT, ROOK, PAWN_ENDGAME};
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            boolean white = color == ChessGame.TeamColor.WHITE;
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                int piece = Bitboards.pieceIndex(color, type);
+                int t = type.ordinal();
+                for (int square = 0; square < Bitboards.SQUARES; square++) {
+                    //Flipping the row turns a square into its index in the top-down tables for white, and mirrors
+                    //the board for black
+                    int tableIndex = white ? square ^ 56 : square;
+                    int sign = white ? 1 : -1;
+                    MIDDLEGAME_SCORES[piece][square] = sign * (MIDDLEGAME_VALUES[t] + middlegameTables[t][tableIndex]);
+                    ENDGAME_SCORES[piece][square] = sign * (ENDGAME_VALUES[t] + endgameTables[t][tableIndex]);
+                }
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the middlegame material value of a piece type
+     */
+    public static int pieceValue(ChessPiece.PieceType type) {
+        return MIDDLEGAME_VALUES[type.ordinal()];
+    }
+
+    /**
+     * @return what a piece on a square adds to the white-minus-black middlegame score
+     */
+    static int middlegameScore(ChessPiece piece, int square) {
+        return MIDDLEGAME_SCORES[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    /**
+     * @return what a piece on a square adds to the white-minus-black endgame score
+     */
+    static int endgameScore(ChessPiece piece, int square) {
+        return ENDGAME_SCORES[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    static int phaseWeight(ChessPiece.PieceType type) {
+        return PHASE_WEIGHTS[type.ordinal()];
+    }
+
+    /**
+     * Blends the board's middlegame and endgame scores by how much material is left
+     *
+     * @return the evaluation, positive when the side to move is ahead
+     */
+    public static int evaluate(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        //Promotions can push the phase past its starting value
+        int phase = Math.min(board.getGamePhase(), MAX_PHASE);
+        int score = (board.getMiddlegameScore() * phase + board.getEndgameScore() * (MAX_PHASE - phase)) / MAX_PHASE;
+        return sideToMove == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
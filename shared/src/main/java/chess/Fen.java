@@ -0,0 +1,269 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, e.g. the starting position
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}. Use {@link ChessGame#fromFen(CharSequence)} and
+ * {@link ChessGame#toFen()} rather than this class directly.
+ * <p>
+ * The parser makes one pass over the characters in place, without splitting the text into fields or copying it.
+ * Only the piece placement and side to move are required; the castling, en passant and move number fields default
+ * to none, none, 0 and 1. Castling rights are only kept for kings and rooks still on their starting squares, and an
+ * en passant square only when a pawn can actually capture there, the same as ChessGame tracks them.
+ */
+final class Fen {
+    //Indexed by Bitboards.pieceIndex
+    private static final String PIECE_SYMBOLS;
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    //The longest possible FEN is a little under 90 characters
+    private static final int TYPICAL_LENGTH = 90;
+
+    static {
+        char[] symbols = new char[12];
+        for (ChessPiece.PieceType type : TYPES) {
+            char symbol = switch (type) {
+                case KING -> 'K';
+                case QUEEN -> 'Q';
+                case BISHOP -> 'B';
+                case KNIGHT -> 'N';
+                case ROOK -> 'R';
+                case PAWN -> 'P';
+            };
+            symbols[Bitboards.pieceIndex(ChessGame.TeamColor.WHITE, type)] = symbol;
+            symbols[Bitboards.pieceIndex(ChessGame.TeamColor.BLACK, type)] = Character.toLowerCase(symbol);
+        }
+        PIECE_SYMBOLS = new String(symbols);
+    }
+
+    private Fen() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    static ChessGame parse(CharSequence fen) {
+        return new Parser(fen).parse();
+    }
+
+    static String write(ChessGame game) {
+        StringBuilder fen = new StringBuilder(TYPICAL_LENGTH);
+        ChessBoard board = game.getBoard();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(Bitboards.square(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                fen.append(PIECE_SYMBOLS.charAt(Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        int rights = game.castlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        } else {
+            appendIf(fen, rights, ChessGame.WHITE_KINGSIDE, 'K');
+            appendIf(fen, rights, ChessGame.WHITE_QUEENSIDE, 'Q');
+            appendIf(fen, rights, ChessGame.BLACK_KINGSIDE, 'k');
+            appendIf(fen, rights, ChessGame.BLACK_QUEENSIDE, 'q');
+        }
+
+        fen.append(' ');
+        int enPassant = game.enPassantSquare();
+        if (enPassant == ChessGame.NO_EN_PASSANT) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + Bitboards.column(enPassant) - 1)).append(Bitboards.row(enPassant));
+        }
+        return fen.append(' ').append(game.getHalfmoveClock()).append(' ').append(game.getFullmoveNumber()).toString();
+    }
+
+    private static void appendIf(StringBuilder fen, int rights, int right, char symbol) {
+        if ((rights & right) != 0) {
+            fen.append(symbol);
+        }
+    }
+
+    private static final class Parser {
+        private final CharSequence fen;
+        private int pos;
+
+        Parser(CharSequence fen) {
+            this.fen = fen;
+        }
+
+        ChessGame parse() {
+            skipSpaces();
+            ChessBoard board = parsePlacement();
+            if (!skipSpaces()) {
+                throw error("FEN needs at least a piece placement and side to move");
+            }
+            ChessGame.TeamColor turn = switch (next()) {
+                case 'w' -> ChessGame.TeamColor.WHITE;
+                case 'b' -> ChessGame.TeamColor.BLACK;
+                default -> throw error("FEN side to move must be w or b");
+            };
+            ChessGame game = new ChessGame(board, turn);
+            endField();
+
+            int castlingRights = 0;
+            if (skipSpaces()) {
+                castlingRights = parseCastling();
+                endField();
+            }
+            game.setCastlingRights(game.castlingRights() & castlingRights);
+            if (skipSpaces()) {
+                game.setEnPassantSquare(parseEnPassant(game));
+                endField();
+            }
+            if (skipSpaces()) {
+                game.setHalfmoveClock(parseNumber("halfmove clock"));
+            }
+            if (skipSpaces()) {
+                int fullmove = parseNumber("fullmove number");
+                if (fullmove < 1) {
+                    throw error("FEN fullmove number must be at least 1");
+                }
+                game.setFullmoveNumber(fullmove);
+            }
+            if (skipSpaces()) {
+                throw error("Unexpected text after FEN");
+            }
+            return game;
+        }
+
+        private ChessBoard parsePlacement() {
+            ChessBoard board = new ChessBoard();
+            int row = 8;
+            int col = 1;
+            while (pos < fen.length() && !Character.isWhitespace(fen.charAt(pos))) {
+                char c = fen.charAt(pos++);
+                if (c == '/') {
+                    if (col != 9 || row == 1) {
+                        throw error("FEN rank " + row + " doesn't have 8 squares");
+                    }
+                    row--;
+                    col = 1;
+                } else if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else {
+                    int index = PIECE_SYMBOLS.indexOf(c);
+                    if (index < 0) {
+                        throw error("Unknown FEN piece " + c);
+                    }
+                    if (col > 8) {
+                        throw error("FEN piece placement runs off the board");
+                    }
+                    ChessGame.TeamColor color = index < 6 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                    board.addPiece(ChessPosition.of(row, col), ChessPiece.of(color, TYPES[index % 6]));
+                    col++;
+                }
+                if (col > 9) {
+                    throw error("FEN piece placement runs off the board");
+                }
+            }
+            if (row != 1 || col != 9) {
+                throw error("FEN piece placement must describe all 64 squares");
+            }
+            return board;
+        }
+
+        private int parseCastling() {
+            if (fen.charAt(pos) == '-') {
+                pos++;
+                return 0;
+            }
+            int rights = 0;
+            while (pos < fen.length() && !Character.isWhitespace(fen.charAt(pos))) {
+                char c = fen.charAt(pos++);
+                rights |= switch (c) {
+                    case 'K' -> ChessGame.WHITE_KINGSIDE;
+                    case 'Q' -> ChessGame.WHITE_QUEENSIDE;
+                    case 'k' -> ChessGame.BLACK_KINGSIDE;
+                    case 'q' -> ChessGame.BLACK_QUEENSIDE;
+                    default -> throw error("Unknown FEN castling right " + c);
+                };
+            }
+            return rights;
+        }
+
+        private int parseEnPassant(ChessGame game) {
+            char file = next();
+            if (file == '-') {
+                return ChessGame.NO_EN_PASSANT;
+            }
+            char rank = pos < fen.length() ? fen.charAt(pos++) : ' ';
+            if (file < 'a' || file > 'h' || (rank != '3' && rank != '6')) {
+                throw error("FEN en passant square must be on the 3rd or 6th rank");
+            }
+            ChessGame.TeamColor color = game.getTeamTurn();
+            //The pawn that just moved two squares is the opponent's, so the square is behind it from the mover's side
+            int expectedRank = color == ChessGame.TeamColor.WHITE ? 6 : 3;
+            if (rank - '0' != expectedRank) {
+                return ChessGame.NO_EN_PASSANT;
+            }
+            int col = file - 'a' + 1;
+            int square = Bitboards.square(expectedRank, col);
+            int direction = color == ChessGame.TeamColor.WHITE ? -1 : 1;
+            ChessBoard board = game.getBoard();
+            ChessGame.TeamColor opponent = ChessGame.opposingTeam(color);
+            boolean pawnPushed = ChessPiece.of(opponent, ChessPiece.PieceType.PAWN)
+                    .equals(board.getPiece(ChessPosition.of(expectedRank + direction, col)))
+                    && board.getPiece(ChessPosition.of(expectedRank, col)) == null
+                    && board.getPiece(ChessPosition.of(expectedRank - direction, col)) == null;
+            long takers = AttackTables.pawnAttacks(opponent, square)
+                    & board.getPieces(color, ChessPiece.PieceType.PAWN);
+            return pawnPushed && takers != 0 ? square : ChessGame.NO_EN_PASSANT;
+        }
+
+        private int parseNumber(String field) {
+            int start = pos;
+            int value = 0;
+            while (pos < fen.length() && fen.charAt(pos) >= '0' && fen.charAt(pos) <= '9') {
+                if (pos - start >= 6) {
+                    throw error("FEN " + field + " is too large");
+                }
+                value = value * 10 + fen.charAt(pos++) - '0';
+            }
+            if (pos == start) {
+                throw error("FEN " + field + " must be a number");
+            }
+            endField();
+            return value;
+        }
+
+        private char next() {
+            return fen.charAt(pos++);
+        }
+
+        //Returns whether another field follows
+        private boolean skipSpaces() {
+            while (pos < fen.length() && Character.isWhitespace(fen.charAt(pos))) {
+                pos++;
+            }
+            return pos < fen.length();
+        }
+
+        private void endField() {
+            if (pos < fen.length() && !Character.isWhitespace(fen.charAt(pos))) {
+                throw error("Unexpected character " + fen.charAt(pos) + " in FEN");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + ": " + fen);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks the legal move tree of a game in parallel. The top few plies (the split depth) are expanded into fork-join
+ * tasks, each working on its own copy of the game, and below that each subtree is handed to a visitor to walk
+ * sequentially. Idle workers steal unstarted subtrees, so uneven subtrees still keep every core busy.
+ */
+public class ForkJoinTreeWalker {
+
+    /**
+     * Does the sequential work below the split depth and combines the results
+     *
+     * @param <T> the result each subtree produces, e.g. a node count
+     */
+    public interface SubtreeVisitor<T> {
+        /**
+         * Walks the subtree of the given depth under a position. The game is a private copy and may be modified.
+         */
+        T visit(ChessGame game, int depth);
+
+        T combine(T first, T second);
+    }
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+
+    /**
+     * @param pool       the pool to run subtrees on
+     * @param splitDepth how many plies below the root to split into separate tasks
+     */
+    public ForkJoinTreeWalker(ForkJoinPool pool, int splitDepth) {
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * @return the combined result of visiting every subtree of the tree of the given depth
+     */
+    public <T> T walk(ChessGame game, int depth, SubtreeVisitor<T> visitor) {
+        return pool.invoke(new SubtreeTask<>(game.copy(), depth, Math.min(splitDepth, depth), visitor));
+    }
+
+    private static class SubtreeTask<T> extends RecursiveTask<T> {
+        private final ChessGame game;
+        private final int depth;
+        private final int splitsLeft;
+        private final SubtreeVisitor<T> visitor;
+
+        SubtreeTask(ChessGame game, int depth, int splitsLeft, SubtreeVisitor<T> visitor) {
+            this.game = game;
+            this.depth = depth;
+            this.splitsLeft = splitsLeft;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected T compute() {
+            if (splitsLeft <= 0) {
+                return visitor.visit(game, depth);
+            }
+
+            MoveList moves = new MoveList();
+            MoveGenerator.generateLegalMoves(game, moves);
+            if (moves.isEmpty()) {
+                return visitor.visit(game, depth);
+            }
+
+            List<SubtreeTask<T>> children = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                ChessGame child = game.copy();
+                child.makeMove(moves.get(i));
+                children.add(new SubtreeTask<>(child, depth - 1, splitsLeft - 1, visitor));
+            }
+            invokeAll(children);
+
+            T result = children.get(0).join();
+            for (int i = 1; i < children.size(); i++) {
+                result = visitor.combine(result, children.get(i).join());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Lazy SMP: runs the same {@link Search} on several threads at once, each on its own copy of the game, all sharing
+ * one {@link TranspositionTable}. The threads never talk to each other directly; they speed each other up by
+ * filling the table with results the others can use, and half of the helpers start one ply deeper so they don't
+ * all walk the same tree in lockstep.
+ * <p>
+ * The calling thread runs the main search and helpers run on the given executor. When the main search finishes the
+ * helpers are stopped, and the result comes from whichever thread finished the deepest iteration.
+ * <p>
+ * Run from the command line as {@code [millis] [fen]} to search the position for a fixed time once per thread count
+ * from 1 up to the number of cores, printing the speed and depth reached at each.
+ */
+public class LazySmpSearch {
+    private final TranspositionTable table;
+    private final ExecutorService helpers;
+
+    /**
+     * @param table   the table every thread shares
+     * @param helpers runs the helper threads; it needs at least as many threads as helpers wanted, or some will sit
+     *                in its queue until the search is over
+     */
+    public LazySmpSearch(TranspositionTable table, ExecutorService helpers) {
+        this.table = table;
+        this.helpers = helpers;
+    }
+
+    /**
+     * Searches with {@link SearchLimits#threads()} threads including the calling one. The game passed in is not
+     * modified.
+     *
+     * @return the deepest thread's result, with nodes counted across every thread
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        long start = System.nanoTime();
+        List<Search> helperSearches = new ArrayList<>();
+        List<Future<SearchResult>> helperResults = new ArrayList<>();
+        for (int i = 0; i < limits.threads() - 1; i++) {
+            Search helper = new Search(table);
+            ChessGame position = game.copy();
+            int firstDepth = 1 + i % 2;
+            helperSearches.add(helper);
+            helperResults.add(helpers.submit(() -> helper.search(position, limits, firstDepth)));
+        }
+
+        SearchResult best = new Search(table).search(game.copy(), limits);
+        helperSearches.forEach(Search::stop);
+
+        long nodes = best.nodes();
+        for (Future<SearchResult> future : helperResults) {
+            SearchResult result = getResult(future);
+            nodes += result.nodes();
+            if (result.depth() > best.depth() && result.bestMove() != null) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static SearchResult getResult(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a helper search", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Helper search failed", ex.getCause());
+        }
+    }
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 5000;
+        ChessGame game = ChessGame.fromFen(args.length > 1 ? String.join(" ", List.of(args).subList(1, args.length))
+                : ChessGame.START_FEN);
+        int cores = Runtime.getRuntime().availableProcessors();
+        TranspositionTable table = new TranspositionTable(256);
+        //Warm up once so the JIT has compiled the search before we time anything
+        new Search(table).search(game, SearchLimits.time(millis));
+
+        //Double the thread count each run, finishing with every core
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads - 1));
+            table.clear();
+            SearchResult result = new LazySmpSearch(table, pool).search(game, SearchLimits.time(millis)
+                    .withThreads(threads));
+            pool.shutdown();
+
+            if (threads == 1) {
+                baseline = result.nodesPerSecond();
+            }
+            System.out.printf("%2d threads: depth %d, %s (%d), %,d nodes/s (%.2fx), table hits %,d%n",
+                    threads, result.depth(), PackedMove.toCoordinates(PackedMove.encode(result.bestMove())),
+                    result.score(), result.nodesPerSecond(), result.nodesPerSecond() / baseline, table.getHits());
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+}
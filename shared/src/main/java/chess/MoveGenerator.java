@@ -0,0 +1,318 @@
+package chess;
+
+/**
+ * Pseudo-legal and legal move generation into a {@link MoveList} of packed moves. This is the engine's hot path, so
+ * nothing here allocates.
+ * <p>
+ * Moves can also be generated in two halves, captures (including all promotions) and quiet moves, so a search can
+ * try the captures before paying to generate the rest.
+ * <p>
+ * Castling and en passant depend on how the game got to the position, so only the overloads taking a ChessGame
+ * generate them. The ChessBoard overloads give just the moves of the pieces where they stand.
+ */
+public final class MoveGenerator {
+    private static final ChessPiece.PieceType[] PROMOTIONS = {ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+
+    private static final int CAPTURES = 1;
+    private static final int QUIETS = 2;
+    private static final int ALL = CAPTURES | QUIETS;
+    private static final int NO_CASTLING = 0;
+    private static final int NO_EN_PASSANT = -1;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Adds the moves of the piece on a square, without removing ones that leave the king in check
+     */
+    public static void generatePieceMoves(ChessBoard board, int from, MoveList moves) {
+        addPieceMoves(board, from, NO_CASTLING, NO_EN_PASSANT, ALL, moves);
+    }
+
+    /**
+     * Adds the moves of the piece on a square, castling and en passant included, without removing ones that leave
+     * the king in check
+     */
+    public static void generatePieceMoves(ChessGame game, int from, MoveList moves) {
+        ChessPiece piece = game.getBoard().getPiece(from);
+        addPieceMoves(game.getBoard(), from, game.castlingRights(), enPassantSquare(game, piece.getTeamColor()), ALL,
+                moves);
+    }
+
+    /**
+     * Adds the moves of every piece of a team, without removing ones that leave the king in check
+     */
+    public static void generateMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        generate(board, color, NO_CASTLING, NO_EN_PASSANT, ALL, moves);
+    }
+
+    /**
+     * Adds every move of the side to move, castling and en passant included, without removing ones that leave the
+     * king in check
+     */
+    public static void generateMoves(ChessGame game, MoveList moves) {
+        generate(game, ALL, moves);
+    }
+
+    /**
+     * Adds a team's captures and promotions, without removing ones that leave the king in check
+     */
+    public static void generateCaptures(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        generate(board, color, NO_CASTLING, NO_EN_PASSANT, CAPTURES, moves);
+    }
+
+    /**
+     * Adds the side to move's captures and promotions, en passant included
+     */
+    public static void generateCaptures(ChessGame game, MoveList moves) {
+        generate(game, CAPTURES, moves);
+    }
+
+    /**
+     * Adds a team's moves that are neither captures nor promotions, without removing ones that leave the king in
+     * check
+     */
+    public static void generateQuiets(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        generate(board, color, NO_CASTLING, NO_EN_PASSANT, QUIETS, moves);
+    }
+
+    /**
+     * Adds the side to move's moves that are neither captures nor promotions, castling included
+     */
+    public static void generateQuiets(ChessGame game, MoveList moves) {
+        generate(game, QUIETS, moves);
+    }
+
+    /**
+     * Checks a move from somewhere else, like a hash table or another position, could be made here. Doesn't check
+     * whether it leaves the king in check.
+     *
+     * @param scratch a list to generate into, which is cleared first
+     */
+    public static boolean isPseudoLegal(ChessBoard board, ChessGame.TeamColor color, int move, MoveList scratch) {
+        ChessPiece piece = board.getPiece(PackedMove.from(move));
+        if (piece == null || piece.getTeamColor() != color) {
+            return false;
+        }
+        scratch.clear();
+        generatePieceMoves(board, PackedMove.from(move), scratch);
+        return contains(scratch, move);
+    }
+
+    /**
+     * Same as {@link #isPseudoLegal(ChessBoard, ChessGame.TeamColor, int, MoveList)} for the side to move in a game,
+     * so castling and en passant moves count too
+     */
+    public static boolean isPseudoLegal(ChessGame game, int move, MoveList scratch) {
+        ChessPiece piece = game.getBoard().getPiece(PackedMove.from(move));
+        if (piece == null || piece.getTeamColor() != game.getTeamTurn()) {
+            return false;
+        }
+        scratch.clear();
+        generatePieceMoves(game, PackedMove.from(move), scratch);
+        return contains(scratch, move);
+    }
+
+    private static boolean contains(MoveList moves, int move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds every legal move for a team
+     */
+    public static void generateLegalMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        int start = moves.size();
+        generateMoves(board, color, moves);
+        removeIllegalMoves(board, color, moves, start);
+    }
+
+    /**
+     * Adds every legal move for the side to move, castling and en passant included
+     */
+    public static void generateLegalMoves(ChessGame game, MoveList moves) {
+        int start = moves.size();
+        generateMoves(game, moves);
+        removeIllegalMoves(game.getBoard(), game.getTeamTurn(), moves, start);
+    }
+
+    /**
+     * Filters a list in place, keeping only the moves from index start onward that don't leave the king in check
+     */
+    public static void removeIllegalMoves(ChessBoard board, ChessGame.TeamColor color, MoveList moves, int start) {
+        int kept = start;
+        for (int i = start; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (isLegal(board, move, color)) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor color, MoveList scratch) {
+        scratch.clear();
+        generateMoves(board, color, scratch);
+        return anyLegal(board, color, scratch);
+    }
+
+    /**
+     * Checks whether a team has any legal move in a game, which may be the side not to move. Only the side to move
+     * can capture en passant.
+     */
+    public static boolean hasLegalMove(ChessGame game, ChessGame.TeamColor color, MoveList scratch) {
+        scratch.clear();
+        generate(game.getBoard(), color, game.castlingRights(), enPassantSquare(game, color), ALL, scratch);
+        return anyLegal(game.getBoard(), color, scratch);
+    }
+
+    private static boolean anyLegal(ChessBoard board, ChessGame.TeamColor color, MoveList moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (isLegal(board, moves.get(i), color)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if making the move does not leave the mover's king attacked
+     */
+    public static boolean isLegal(ChessBoard board, int move, ChessGame.TeamColor color) {
+        board.makeMove(move);
+        int kingSquare = board.getKingSquare(color);
+        boolean legal = kingSquare < 0 || !board.isSquareAttacked(kingSquare, ChessGame.opposingTeam(color));
+        board.unmakeMove();
+        return legal;
+    }
+
+    private static void generate(ChessGame game, int kinds, MoveList moves) {
+        generate(game.getBoard(), game.getTeamTurn(), game.castlingRights(), game.enPassantSquare(), kinds, moves);
+    }
+
+    private static int enPassantSquare(ChessGame game, ChessGame.TeamColor color) {
+        return color == game.getTeamTurn() ? game.enPassantSquare() : NO_EN_PASSANT;
+    }
+
+    private static void generate(ChessBoard board, ChessGame.TeamColor color, int castlingRights, int enPassantSquare,
+                                 int kinds, MoveList moves) {
+        long pieces = board.getPieces(color);
+        while (pieces != 0) {
+            addPieceMoves(board, Long.numberOfTrailingZeros(pieces), castlingRights, enPassantSquare, kinds, moves);
+            pieces &= pieces - 1;
+        }
+    }
+
+    private static void addPieceMoves(ChessBoard board, int from, int castlingRights, int enPassantSquare, int kinds,
+                                      MoveList moves) {
+        ChessPiece piece = board.getPiece(from);
+        long friendly = board.getPieces(piece.getTeamColor());
+        long occupied = board.getOccupied();
+        long enemies = occupied & ~friendly;
+
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            addPawnMoves(from, piece.getTeamColor(), occupied, enemies, enPassantSquare, kinds, moves);
+        } else {
+            long targets = 0L;
+            if ((kinds & CAPTURES) != 0) {
+                targets |= enemies;
+            }
+            if ((kinds & QUIETS) != 0) {
+                targets |= ~occupied;
+            }
+            addMoves(from, AttackTables.attacks(piece.getPieceType(), from, occupied) & targets, moves);
+            if (piece.getPieceType() == ChessPiece.PieceType.KING && castlingRights != NO_CASTLING
+                    && (kinds & QUIETS) != 0) {
+                addCastlingMoves(board, from, piece.getTeamColor(), castlingRights, moves);
+            }
+        }
+    }
+
+    /**
+     * Castling needs the right, an empty path between king and rook, and a king that isn't in check and doesn't
+     * cross or land on an attacked square. Rights are only ever held with the king and rook on their start
+     * squares.
+     */
+    private static void addCastlingMoves(ChessBoard board, int from, ChessGame.TeamColor color, int castlingRights,
+                                         MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int kingside = white ? ChessGame.WHITE_KINGSIDE : ChessGame.BLACK_KINGSIDE;
+        int queenside = white ? ChessGame.WHITE_QUEENSIDE : ChessGame.BLACK_QUEENSIDE;
+        if ((castlingRights & (kingside | queenside)) == 0) {
+            return;
+        }
+        ChessGame.TeamColor opponent = ChessGame.opposingTeam(color);
+        long occupied = board.getOccupied();
+        if (board.isSquareAttacked(from, opponent)) {
+            return;
+        }
+        if ((castlingRights & kingside) != 0
+                && (occupied & (Bitboards.bit(from + 1) | Bitboards.bit(from + 2))) == 0
+                && !board.isSquareAttacked(from + 1, opponent) && !board.isSquareAttacked(from + 2, opponent)) {
+            moves.add(PackedMove.withFlags(PackedMove.encode(from, from + 2), PackedMove.CASTLING));
+        }
+        if ((castlingRights & queenside) != 0
+                && (occupied & (Bitboards.bit(from - 1) | Bitboards.bit(from - 2) | Bitboards.bit(from - 3))) == 0
+                && !board.isSquareAttacked(from - 1, opponent) && !board.isSquareAttacked(from - 2, opponent)) {
+            moves.add(PackedMove.withFlags(PackedMove.encode(from, from - 2), PackedMove.CASTLING));
+        }
+    }
+
+    private static void addPawnMoves(int from, ChessGame.TeamColor color, long occupied, long enemies,
+                                     int enPassantSquare, int kinds, MoveList moves) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int forward = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+        int promotionRow = white ? 8 : 1;
+
+        long captures = AttackTables.pawnAttacks(color, from) & enemies;
+        long pushes = 0L;
+        int oneStep = from + forward;
+        if ((occupied & Bitboards.bit(oneStep)) == 0) {
+            pushes |= Bitboards.bit(oneStep);
+            //A pawn on its starting row can move two squares if both are empty
+            int twoSteps = oneStep + forward;
+            if (Bitboards.row(from) == startRow && (occupied & Bitboards.bit(twoSteps)) == 0) {
+                pushes |= Bitboards.bit(twoSteps);
+            }
+        }
+
+        boolean promoting = Bitboards.row(oneStep) == promotionRow;
+        long targets = 0L;
+        //Every promotion counts as a capture, since it wins material just the same
+        if ((kinds & CAPTURES) != 0) {
+            targets |= promoting ? captures | pushes : captures;
+        }
+        if ((kinds & QUIETS) != 0 && !promoting) {
+            targets |= pushes;
+        }
+
+        if (promoting) {
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    moves.add(PackedMove.encode(from, to, promotion));
+                }
+            }
+        } else {
+            addMoves(from, targets, moves);
+        }
+        if (enPassantSquare != NO_EN_PASSANT && (kinds & CAPTURES) != 0
+                && (AttackTables.pawnAttacks(color, from) & Bitboards.bit(enPassantSquare)) != 0) {
+            moves.add(PackedMove.withFlags(PackedMove.encode(from, enPassantSquare), PackedMove.EN_PASSANT));
+        }
+    }
+
+    private static void addMoves(int from, long targets, MoveList moves) {
+        while (targets != 0) {
+            moves.add(PackedMove.encode(from, Long.numberOfTrailingZeros(targets)));
+            targets &= targets - 1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of packed moves (see {@link PackedMove}) backed by a plain int array. Clear and reuse one list
+ * rather than allocating a new collection every time moves are generated.
+ */
+public class MoveList {
+    //No legal chess position has more than 218 moves, so this rarely needs to grow
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from the given index onward
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * The move ordering heuristics a search learns as it goes: killer moves and the history table. They are updated on
+ * every beta cutoff, so each search thread keeps its own rather than sharing one.
+ * <p>
+ * Killer moves are quiet moves that caused a cutoff at the same ply elsewhere in the tree; a refutation in one line
+ * often refutes its siblings too. The history table scores quiet moves by how often and how deep they have caused
+ * cutoffs anywhere in the tree.
+ */
+public class MoveOrdering {
+    private static final int KILLERS_PER_PLY = 2;
+    //Most valuable victim first, then least valuable attacker; indexed by PieceType ordinal
+    private static final int[] PIECE_RANKS = {6, 5, 3, 2, 4, 1};
+
+    private final int[][] killers = new int[Search.MAX_PLY + 1][KILLERS_PER_PLY];
+    private final int[][][] history = new int[2][Bitboards.SQUARES][Bitboards.SQUARES];
+
+    /**
+     * Gets ready for a new search. Killers are tied to the previous root so they are cleared, while history is
+     * still roughly right and is only scaled down.
+     */
+    public void newSearch() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, 0);
+        }
+        for (int[][] colorHistory : history) {
+            for (int[] fromHistory : colorHistory) {
+                for (int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] >>= 1;
+                }
+            }
+        }
+    }
+
+    public int killer(int ply, int slot) {
+        return killers[ply][slot];
+    }
+
+    public int history(ChessGame.TeamColor color, int move) {
+        return history[color.ordinal()][PackedMove.from(move)][PackedMove.to(move)];
+    }
+
+    /**
+     * Records a move that caused a beta cutoff. Only quiet moves are remembered, since captures are already
+     * ordered well by MVV-LVA. Call with the board back in the position the move was made from.
+     */
+    public void recordCutoff(ChessBoard board, ChessGame.TeamColor color, int move, int ply, int depth) {
+        if (!isQuiet(board, move)) {
+            return;
+        }
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[color.ordinal()][PackedMove.from(move)];
+        int to = PackedMove.to(move);
+        fromHistory[to] += depth * depth;
+        //Keep scores from growing without bound in long searches
+        if (fromHistory[to] > 1 << 20) {
+            newSearch();
+        }
+    }
+
+    /**
+     * Scores a capture or promotion by most valuable victim, least valuable attacker, so taking a queen with a pawn
+     * comes before taking a pawn with a queen
+     */
+    public static int mvvLva(ChessBoard board, int move) {
+        int score = 0;
+        ChessPiece victim = board.getPiece(PackedMove.to(move));
+        if (victim != null) {
+            score += PIECE_RANKS[victim.getPieceType().ordinal()] * 16;
+        } else if (isEnPassant(move)) {
+            score += PIECE_RANKS[ChessPiece.PieceType.PAWN.ordinal()] * 16;
+        }
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        if (promotion != null) {
+            score += PIECE_RANKS[promotion.ordinal()] * 16;
+        }
+        return score - PIECE_RANKS[board.getPiece(PackedMove.from(move)).getPieceType().ordinal()];
+    }
+
+    public static boolean isQuiet(ChessBoard board, int move) {
+        return board.getPiece(PackedMove.to(move)) == null && PackedMove.promotion(move) == null && !isEnPassant(move);
+    }
+
+    //An en passant capture lands on an empty square
+    private static boolean isEnPassant(int move) {
+        return (PackedMove.flags(move) & PackedMove.EN_PASSANT) != 0;
+    }
+}
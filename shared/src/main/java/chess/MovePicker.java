@@ -0,0 +1,175 @@
+package chess;
+
+/**
+ * Hands out the moves of one search node roughly best first, generating them in stages so that a cutoff on an
+ * early move skips the work of generating and sorting the rest:
+ * <ol>
+ *     <li>the transposition table's move,</li>
+ *     <li>captures and promotions by {@link MoveOrdering#mvvLva MVV-LVA},</li>
+ *     <li>the killer moves for this ply,</li>
+ *     <li>the remaining quiet moves by history score.</li>
+ * </ol>
+ * Moves are pseudo-legal, so the caller still has to check they don't leave the king in check. A search keeps one
+ * picker per ply and reinitializes it at each node.
+ */
+public class MovePicker {
+    private static final int STAGE_HASH = 0;
+    private static final int STAGE_GENERATE_CAPTURES = 1;
+    private static final int STAGE_CAPTURES = 2;
+    private static final int STAGE_KILLERS = 3;
+    private static final int STAGE_GENERATE_QUIETS = 4;
+    private static final int STAGE_QUIETS = 5;
+    private static final int STAGE_DONE = 6;
+
+    private final MoveList moves = new MoveList();
+    private final MoveList scratch = new MoveList(32);
+    private int[] scores = new int[256];
+
+    private ChessGame game;
+    private ChessBoard board;
+    private ChessGame.TeamColor color;
+    private MoveOrdering ordering;
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private int ply;
+    private int stage;
+    private int index;
+    private boolean capturesOnly;
+
+    /**
+     * Starts picking every move at a node
+     *
+     * @param hashMove the transposition table's move, or 0 for none
+     */
+    public void init(ChessGame game, int hashMove, MoveOrdering ordering, int ply) {
+        start(game);
+        this.ordering = ordering;
+        this.ply = ply;
+        this.capturesOnly = false;
+        this.hashMove = hashMove != 0 && MoveGenerator.isPseudoLegal(game, hashMove, scratch) ? hashMove : 0;
+        this.killer1 = 0;
+        this.killer2 = 0;
+        this.stage = STAGE_HASH;
+    }
+
+    /**
+     * Starts picking only the captures and promotions at a node, as the quiescence search needs
+     */
+    public void initCaptures(ChessGame game) {
+        start(game);
+        this.capturesOnly = true;
+        this.hashMove = 0;
+        this.killer1 = 0;
+        this.killer2 = 0;
+        this.stage = STAGE_GENERATE_CAPTURES;
+    }
+
+    private void start(ChessGame game) {
+        this.game = game;
+        this.board = game.getBoard();
+        this.color = game.getTeamTurn();
+    }
+
+    /**
+     * @return the next move to try, or 0 once every move has been handed out
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_HASH -> {
+                    stage = STAGE_GENERATE_CAPTURES;
+                    if (hashMove != 0) {
+                        return hashMove;
+                    }
+                }
+                case STAGE_GENERATE_CAPTURES -> {
+                    moves.clear();
+                    MoveGenerator.generateCaptures(game, moves);
+                    scoreMoves(true);
+                    stage = STAGE_CAPTURES;
+                }
+                case STAGE_CAPTURES -> {
+                    int move = pickBest();
+                    if (move != 0) {
+                        return move;
+                    }
+                    stage = capturesOnly ? STAGE_DONE : STAGE_KILLERS;
+                }
+                case STAGE_KILLERS -> {
+                    //Killers come from other positions, so make sure they are real quiet moves here
+                    if (killer1 == 0 && killer2 == 0) {
+                        killer1 = usableKiller(ordering.killer(ply, 0));
+                        killer2 = usableKiller(ordering.killer(ply, 1));
+                        if (killer2 == killer1) {
+                            killer2 = 0;
+                        }
+                        if (killer1 != 0) {
+                            return killer1;
+                        }
+                    }
+                    stage = STAGE_GENERATE_QUIETS;
+                    if (killer2 != 0) {
+                        return killer2;
+                    }
+                }
+                case STAGE_GENERATE_QUIETS -> {
+                    moves.clear();
+                    MoveGenerator.generateQuiets(game, moves);
+                    scoreMoves(false);
+                    stage = STAGE_QUIETS;
+                }
+                case STAGE_QUIETS -> {
+                    int move = pickBest();
+                    if (move != 0) {
+                        return move;
+                    }
+                    stage = STAGE_DONE;
+                }
+                default -> {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    private int usableKiller(int killer) {
+        if (killer == 0 || killer == hashMove || !MoveOrdering.isQuiet(board, killer)
+                || !MoveGenerator.isPseudoLegal(game, killer, scratch)) {
+            return 0;
+        }
+        return killer;
+    }
+
+    private void scoreMoves(boolean captures) {
+        if (scores.length < moves.size()) {
+            scores = new int[moves.size()];
+        }
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            scores[i] = captures ? MoveOrdering.mvvLva(board, move) : ordering.history(color, move);
+        }
+        index = 0;
+    }
+
+    //A selection sort one step at a time: cheaper than a full sort when a cutoff comes early
+    private int pickBest() {
+        while (index < moves.size()) {
+            int best = index;
+            for (int i = index + 1; i < moves.size(); i++) {
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            int move = moves.get(best);
+            moves.set(best, moves.get(index));
+            scores[best] = scores[index];
+            index++;
+            //Skip the moves already handed out by an earlier stage
+            if (move != hashMove && move != killer1 && move != killer2) {
+                return move;
+            }
+        }
+        return 0;
+    }
+}
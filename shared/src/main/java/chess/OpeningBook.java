@@ -0,0 +1,123 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book stored as a sorted file of fixed-size entries, in the style of the Polyglot format.
+ * <p>
+ * Each entry is 16 big-endian bytes: the 8 byte {@link ChessGame#getPositionKey() position key}, a 2 byte
+ * {@link PackedMove}, a 2 byte weight and 4 bytes left unused. Entries are sorted by key (compared unsigned), so a
+ * position's moves sit next to each other and are found by binary search. The file is memory mapped, so looking a
+ * position up reads a handful of pages straight from the OS cache and the heap doesn't grow with the size of the
+ * book.
+ * <p>
+ * Books are built with {@link OpeningBookWriter}. They use our Zobrist keys and move encoding, so real Polyglot
+ * books can't be read directly.
+ */
+public class OpeningBook {
+    public static final int ENTRY_BYTES = 16;
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 10;
+
+    private final ByteBuffer entries;
+    private final int entryCount;
+
+    private OpeningBook(ByteBuffer entries) {
+        this.entries = entries;
+        this.entryCount = entries.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file into memory. The file shouldn't change while the book is in use.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            //The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * A move the book suggests and how often it should be played relative to the position's other book moves
+     */
+    public record BookMove(ChessMove move, int weight) {
+    }
+
+    /**
+     * Finds the book moves for a position, heaviest first. Moves that aren't legal in the game, which can only
+     * happen on a hash collision, are left out.
+     *
+     * @return the candidate moves, or an empty list if the position isn't in the book
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        List<BookMove> moves = new ArrayList<>();
+        long key = game.getPositionKey();
+        for (int i = firstEntry(key); i < entryCount && entries.getLong(i * ENTRY_BYTES) == key; i++) {
+            ChessMove move = PackedMove.toChessMove(entries.getShort(i * ENTRY_BYTES + MOVE_OFFSET) & 0xFFFF);
+            int weight = entries.getShort(i * ENTRY_BYTES + WEIGHT_OFFSET) & 0xFFFF;
+            if (weight > 0 && isLegal(game, move)) {
+                moves.add(new BookMove(move, weight));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Picks one of the position's book moves at random, in proportion to the weights
+     *
+     * @return the move to play, or null if the position isn't in the book
+     */
+    public ChessMove pickMove(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = lookup(game);
+        int totalWeight = 0;
+        for (BookMove move : moves) {
+            totalWeight += move.weight();
+        }
+        if (totalWeight == 0) {
+            return null;
+        }
+        int pick = random.nextInt(totalWeight);
+        for (BookMove move : moves) {
+            pick -= move.weight();
+            if (pick < 0) {
+                return move.move();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    //Lower bound: the first entry whose key isn't less than the one we want
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(middle * ENTRY_BYTES), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean isLegal(ChessGame game, ChessMove move) {
+        ChessPiece piece = game.getBoard().getPiece(move.getStartPosition());
+        return piece != null && piece.getTeamColor() == game.getTeamTurn()
+                && game.validMoves(move.getStartPosition()).contains(move);
+    }
+}
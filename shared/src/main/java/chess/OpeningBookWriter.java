@@ -0,0 +1,145 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects weighted moves by position and writes them out as an {@link OpeningBook} file.
+ * <p>
+ * Run from the command line as {@code <book file> [lines file]} to build a book from a text file of opening lines,
+ * one line of coordinate moves (e.g. {@code e2e4 e7e5 g1f3}) per line, where # starts a comment. Without a lines
+ * file it uses the lines bundled with the engine.
+ */
+public class OpeningBookWriter {
+    private static final String BUNDLED_LINES = "/openings.txt";
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    //Position key to packed move to weight
+    private final Map<Long, Map<Integer, Integer>> positions = new HashMap<>();
+
+    /**
+     * Adds weight to a move in a position
+     */
+    public void add(ChessGame game, ChessMove move, int weight) {
+        add(game.getPositionKey(), move, weight);
+    }
+
+    private void add(long positionKey, ChessMove move, int weight) {
+        positions.computeIfAbsent(positionKey, key -> new HashMap<>())
+                .merge(PackedMove.encode(move), weight, Integer::sum);
+    }
+
+    /**
+     * Plays a line of coordinate moves from the starting position, adding one to the weight of each
+     *
+     * @throws InvalidMoveException if a move in the line can't be played
+     */
+    public void addLine(String line) throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (String coordinates : line.trim().split("\\s+")) {
+            if (coordinates.isEmpty()) {
+                continue;
+            }
+            ChessMove move;
+            try {
+                move = PackedMove.toChessMove(PackedMove.fromCoordinates(coordinates));
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidMoveException(ex.getMessage());
+            }
+            //Add after making the move, so an illegal move doesn't end up in the book
+            long positionKey = game.getPositionKey();
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException ex) {
+                throw new InvalidMoveException("Illegal move " + coordinates);
+            }
+            add(positionKey, move, 1);
+        }
+    }
+
+    /**
+     * Adds every line from a reader of opening lines, skipping blank lines and # comments
+     */
+    public void addLines(Reader reader) throws IOException, InvalidMoveException {
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                addLine(line);
+            } catch (InvalidMoveException ex) {
+                throw new InvalidMoveException("Line " + lineNumber + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the book, sorted by key and then heaviest move first
+     */
+    public void write(Path path) throws IOException {
+        List<Long> keys = new ArrayList<>(positions.keySet());
+        keys.sort(Long::compareUnsigned);
+
+        int entryCount = positions.values().stream().mapToInt(Map::size).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(entryCount * OpeningBook.ENTRY_BYTES);
+        for (long key : keys) {
+            List<Map.Entry<Integer, Integer>> moves = new ArrayList<>(positions.get(key).entrySet());
+            moves.sort(Map.Entry.<Integer, Integer>comparingByValue().reversed());
+            for (Map.Entry<Integer, Integer> move : moves) {
+                buffer.putLong(key);
+                buffer.putShort((short) move.getKey().intValue());
+                buffer.putShort((short) Math.min(move.getValue(), MAX_WEIGHT));
+                buffer.putInt(0);
+            }
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InvalidMoveException {
+        if (args.length < 1) {
+            System.out.println("Usage: OpeningBookWriter <book file> [lines file]");
+            return;
+        }
+        OpeningBookWriter writer = new OpeningBookWriter();
+        if (args.length > 1) {
+            try (Reader reader = Files.newBufferedReader(Path.of(args[1]))) {
+                writer.addLines(reader);
+            }
+        } else {
+            try (InputStream lines = OpeningBookWriter.class.getResourceAsStream(BUNDLED_LINES)) {
+                writer.addLines(new InputStreamReader(lines, StandardCharsets.UTF_8));
+            }
+        }
+        Path output = Path.of(args[0]);
+        writer.write(output);
+        System.out.printf("Wrote %d positions to %s%n", writer.positions.size(), output);
+    }
+}
@@ -0,0 +1,137 @@
+package chess;
+
+/**
+ * Encodes a move in a single int so the engine can generate and store moves without allocating ChessMove and
+ * ChessPosition objects.
+ * <p>
+ * Layout, from the low bit up: 6 bits start square, 6 bits end square, 3 bits promotion piece (0 for none,
+ * otherwise the PieceType ordinal + 1), then move flags. Squares use the 0-63 numbering from {@link Bitboards}.
+ * <p>
+ * Castling is encoded as the king's move with {@link #CASTLING} set, and en passant as the pawn's move with
+ * {@link #EN_PASSANT} set. The move generator sets these; a move built from a ChessMove never has them.
+ */
+public final class PackedMove {
+    public static final int CASTLING = 1;
+    public static final int EN_PASSANT = 2;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final int FLAGS_SHIFT = 15;
+
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << TO_SHIFT);
+    }
+
+    public static int encode(int from, int to, ChessPiece.PieceType promotion) {
+        int move = encode(from, to);
+        if (promotion != null) {
+            move |= (promotion.ordinal() + 1) << PROMOTION_SHIFT;
+        }
+        return move;
+    }
+
+    public static int encode(ChessMove move) {
+        return encode(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * @return the promotion piece type, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return promotion == 0 ? null : PIECE_TYPES[promotion - 1];
+    }
+
+    public static int flags(int move) {
+        return move >>> FLAGS_SHIFT;
+    }
+
+    public static int withFlags(int move, int flags) {
+        return move | (flags << FLAGS_SHIFT);
+    }
+
+    /**
+     * @return the move without its flags, which is what {@link #encode(ChessMove)} gives for the same move
+     */
+    public static int withoutFlags(int move) {
+        return move & ((1 << FLAGS_SHIFT) - 1);
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. e2e4 or e7e8q
+     */
+    public static String toCoordinates(int move) {
+        StringBuilder builder = new StringBuilder(5);
+        appendSquare(builder, from(move));
+        appendSquare(builder, to(move));
+        ChessPiece.PieceType promotion = promotion(move);
+        if (promotion != null) {
+            builder.append(switch (promotion) {
+                case QUEEN -> 'q';
+                case ROOK -> 'r';
+                case BISHOP -> 'b';
+                case KNIGHT -> 'n';
+                default -> '?';
+            });
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses a move in coordinate notation, e.g. e2e4 or e7e8q
+     *
+     * @throws IllegalArgumentException if the text isn't a move in coordinate notation
+     */
+    public static int fromCoordinates(CharSequence text) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw new IllegalArgumentException("Not a coordinate move: " + text);
+        }
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            promotion = switch (text.charAt(4)) {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Not a coordinate move: " + text);
+            };
+        }
+        return encode(parseSquare(text, 0), parseSquare(text, 2), promotion);
+    }
+
+    private static int parseSquare(CharSequence text, int index) {
+        int col = text.charAt(index) - 'a' + 1;
+        int row = text.charAt(index + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8) {
+            throw new IllegalArgumentException("Not a coordinate move: " + text);
+        }
+        return Bitboards.square(row, col);
+    }
+
+    private static void appendSquare(StringBuilder builder, int square) {
+        builder.append((char) ('a' + Bitboards.column(square) - 1)).append(Bitboards.row(square));
+    }
+
+    /**
+     * Builds the public ChessMove for a packed move. Only call this at the API boundary.
+     */
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(Bitboards.position(from(move)), Bitboards.position(to(move)), promotion(move));
+    }
+}
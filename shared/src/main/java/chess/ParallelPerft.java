@@ -0,0 +1,67 @@
+package chess;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Perft spread across a fork-join pool with {@link ForkJoinTreeWalker}.
+ * <p>
+ * Run from the command line as {@code [depth] [fen]} to count the position once per thread count from 1 up to the
+ * number of cores and print the speedup at each, which is how we size machines for search.
+ */
+public final class ParallelPerft {
+    public static final int DEFAULT_SPLIT_DEPTH = 2;
+
+    private static final ForkJoinTreeWalker.SubtreeVisitor<Long> PERFT_VISITOR =
+            new ForkJoinTreeWalker.SubtreeVisitor<>() {
+                @Override
+                public Long visit(ChessGame game, int depth) {
+                    return Perft.perft(game, depth);
+                }
+
+                @Override
+                public Long combine(Long first, Long second) {
+                    return first + second;
+                }
+            };
+
+    private ParallelPerft() {
+    }
+
+    /**
+     * @return the same count as {@link Perft#perft(ChessGame, int)}, computed on the given pool
+     */
+    public static long perft(ChessGame game, int depth, ForkJoinPool pool, int splitDepth) {
+        return new ForkJoinTreeWalker(pool, splitDepth).walk(game, depth, PERFT_VISITOR);
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        ChessGame game = ChessGame.fromFen(args.length > 1 ? String.join(" ", List.of(args).subList(1, args.length))
+                : ChessGame.START_FEN);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        //Double the thread count each run, finishing with every core
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            //Warm up once so the JIT has compiled the move generator before we time anything
+            perft(game, Math.max(depth - 1, 1), pool, DEFAULT_SPLIT_DEPTH);
+
+            long start = System.nanoTime();
+            long nodes = perft(game, depth, pool, DEFAULT_SPLIT_DEPTH);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+
+            double nodesPerSecond = nodes / seconds;
+            if (threads == 1) {
+                baseline = nodesPerSecond;
+            }
+            System.out.printf("%2d threads: %d nodes in %.3f s (%,.0f nodes/s, %.2fx)%n",
+                    threads, nodes, seconds, nodesPerSecond, nodesPerSecond / baseline);
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package chess;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Perft counts the leaf nodes of the legal move tree to a fixed depth. The counts for well-known positions are
+ * published, so any difference means the move generator is wrong, and the time taken is a direct measure of move
+ * generation speed.
+ * <p>
+ * Run from the command line with no arguments to check the standard suite, or with
+ * {@code [--divide] <depth> <fen>} to count a single position. Divide prints the count under each root move, which is
+ * the quickest way to narrow down a bad count against another engine.
+ */
+public final class Perft {
+
+    /**
+     * A position with its published node counts, where expected[0] is depth 1
+     */
+    public record Case(String name, String fen, long... expected) {
+    }
+
+    //Kept to depths that run in a second or two, which is still enough to reach castling, en passant and promotions
+    public static final List<Case> SUITE = List.of(
+            new Case("start position", ChessGame.START_FEN, 20, 400, 8902, 197281),
+            new Case("kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862),
+            new Case("position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238),
+            new Case("position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467),
+            new Case("position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44, 1486, 62379),
+            new Case("position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890)
+    );
+
+    private Perft() {
+    }
+
+    /**
+     * @return the number of leaf nodes in the legal move tree of the given depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return perft(game, depth, newMoveLists(depth));
+    }
+
+    /**
+     * @return the perft count under each legal root move, keyed by the move in coordinate notation
+     */
+    public static Map<String, Long> divide(ChessGame game, int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        MoveList[] moveLists = newMoveLists(Math.max(depth, 1));
+
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(game, rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            game.makeMove(move);
+            long nodes = depth <= 1 ? 1 : perft(game, depth - 1, moveLists);
+            game.unmakeMove();
+            counts.put(PackedMove.toCoordinates(move), nodes);
+        }
+        return counts;
+    }
+
+    private static long perft(ChessGame game, int depth, MoveList[] moveLists) {
+        MoveList moves = moveLists[depth - 1];
+        moves.clear();
+        MoveGenerator.generateLegalMoves(game, moves);
+        //Bulk counting: the leaves are exactly the legal moves at depth 1, so there's no need to make them
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += perft(game, depth - 1, moveLists);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    static MoveList[] newMoveLists(int depth) {
+        MoveList[] moveLists = new MoveList[depth];
+        for (int i = 0; i < depth; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            boolean passed = runSuite();
+            System.exit(passed ? 0 : 1);
+        }
+
+        boolean divide = args[0].equals("--divide");
+        int first = divide ? 1 : 0;
+        if (args.length < first + 2) {
+            System.out.println("Usage: Perft [--divide] <depth> <fen>");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[first]);
+        String fen = String.join(" ", List.of(args).subList(first + 1, args.length));
+        ChessGame game = ChessGame.fromFen(fen);
+
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<String, Long> entry : divide(game, depth).entrySet()) {
+                System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = perft(game, depth);
+        }
+        printResult("depth " + depth, nodes, System.nanoTime() - start);
+    }
+
+    private static boolean runSuite() {
+        boolean passed = true;
+        for (Case perftCase : SUITE) {
+            ChessGame game = ChessGame.fromFen(perftCase.fen());
+            for (int depth = 1; depth <= perftCase.expected().length; depth++) {
+                long start = System.nanoTime();
+                long nodes = perft(game, depth);
+                long elapsed = System.nanoTime() - start;
+                long expected = perftCase.expected()[depth - 1];
+                printResult(String.format("%s depth %d", perftCase.name(), depth), nodes, elapsed);
+                if (nodes != expected) {
+                    System.out.printf("  MISMATCH: expected %d%n", expected);
+                    passed = false;
+                }
+            }
+        }
+        return passed;
+    }
+
+    private static void printResult(String label, long nodes, long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        System.out.printf("%s: %d nodes in %.3f s (%,.0f nodes/s)%n", label, nodes, seconds, nodes / seconds);
+    }
+}
@@ -0,0 +1,40 @@
+package chess;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game as read by {@link PgnReader}: its tag pairs, its main line of SAN moves and its result. The moves aren't
+ * checked until {@link #play()}, so that the expensive part can run on another thread from the reading.
+ *
+ * @param tags   tag pairs in file order, e.g. Event, White, Black and FEN
+ * @param moves  the main line, without move numbers, comments, variations or NAGs
+ * @param result 1-0, 0-1, 1/2-1/2, or * when the game is unfinished or the file ended early
+ */
+public record PgnGame(Map<String, String> tags, List<String> moves, String result) {
+    public static final String UNFINISHED = "*";
+
+    /**
+     * Plays the moves out from the starting position, or from the FEN tag's position when there is one
+     *
+     * @return the game after the last move, marked finished when the PGN has a result
+     * @throws InvalidMoveException if the FEN tag or a move isn't valid
+     */
+    public ChessGame play() throws InvalidMoveException {
+        String fen = tags.get("FEN");
+        ChessGame game;
+        try {
+            game = fen == null ? new ChessGame() : ChessGame.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMoveException(e.getMessage());
+        }
+        MoveList scratch = new MoveList();
+        for (String move : moves) {
+            game.makeMove(San.parse(game, move, scratch));
+        }
+        if (!result.equals(UNFINISHED)) {
+            game.setGameState(ChessGame.GameState.FINISHED);
+        }
+        return game;
+    }
+}
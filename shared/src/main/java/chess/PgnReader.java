@@ -0,0 +1,241 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams games out of a PGN file one at a time, so files of millions of games can be read in constant memory.
+ * Bytes are read from a channel into one reused buffer and decoded into one reused char buffer, and the parser works
+ * straight off the char buffer.
+ * <p>
+ * Only the main line is kept: comments, variations, NAGs and move numbers are skipped. The moves are split out but
+ * not checked; {@link PgnGame#play()} does that.
+ */
+public final class PgnReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int NONE = -1;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final StringBuilder token = new StringBuilder(32);
+    private boolean endOfInput;
+    private boolean flushed;
+    //A character read one too far, to be handed out again by the next read
+    private int pushedBack = NONE;
+
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize the size of the byte and char buffers
+     */
+    public PgnReader(ReadableByteChannel channel, Charset charset, int bufferSize) {
+        this.channel = channel;
+        //Old PGN files are often Latin-1 despite the standard, so don't give up on a bad byte in a player's name
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocate(bufferSize).flip();
+        chars = CharBuffer.allocate(bufferSize).flip();
+    }
+
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * @return the next game, or null at the end of the file
+     */
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        int c;
+        while ((c = read()) != NONE) {
+            switch (c) {
+                case '[' -> {
+                    //Tags after moves mean the last game had no result, so this is the start of the next one
+                    if (!moves.isEmpty()) {
+                        pushedBack = c;
+                        return new PgnGame(tags, moves, PgnGame.UNFINISHED);
+                    }
+                    readTag(tags);
+                }
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                case '(' -> skipVariation();
+                default -> {
+                    if (Character.isWhitespace(c) || c == ')') {
+                        continue;
+                    }
+                    readToken(c);
+                    if (isResult(token)) {
+                        return new PgnGame(tags, moves, token.toString());
+                    }
+                    String move = moveIn(token);
+                    if (move != null) {
+                        moves.add(move);
+                    }
+                }
+            }
+        }
+        if (tags.isEmpty() && moves.isEmpty()) {
+            return null;
+        }
+        return new PgnGame(tags, moves, PgnGame.UNFINISHED);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != NONE) {
+            int c = pushedBack;
+            pushedBack = NONE;
+            return c;
+        }
+        if (!chars.hasRemaining() && !fill()) {
+            return NONE;
+        }
+        return chars.get();
+    }
+
+    private boolean fill() throws IOException {
+        if (flushed) {
+            return false;
+        }
+        chars.clear();
+        while (chars.position() == 0) {
+            decoder.decode(bytes, chars, endOfInput);
+            if (chars.position() > 0) {
+                break;
+            }
+            if (endOfInput) {
+                decoder.flush(chars);
+                flushed = true;
+                break;
+            }
+            bytes.compact();
+            if (channel.read(bytes) < 0) {
+                endOfInput = true;
+            }
+            bytes.flip();
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    //Reads a tag pair like [White "Carlsen, Magnus"], after the opening bracket
+    private void readTag(Map<String, String> tags) throws IOException {
+        token.setLength(0);
+        int c = read();
+        while (c != NONE && c != '"' && c != ']') {
+            if (!Character.isWhitespace(c)) {
+                token.append((char) c);
+            }
+            c = read();
+        }
+        String name = token.toString();
+        token.setLength(0);
+        if (c == '"') {
+            while ((c = read()) != NONE && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                    if (c == NONE) {
+                        break;
+                    }
+                }
+                token.append((char) c);
+            }
+            skipPast(']');
+        }
+        if (!name.isEmpty()) {
+            tags.put(name, token.toString());
+        }
+    }
+
+    private void readToken(int first) throws IOException {
+        token.setLength(0);
+        token.append((char) first);
+        int c;
+        while ((c = read()) != NONE) {
+            if (Character.isWhitespace(c)) {
+                return;
+            }
+            if ("[{(;)".indexOf(c) >= 0) {
+                pushedBack = c;
+                return;
+            }
+            token.append((char) c);
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != NONE && c != end);
+    }
+
+    //Variations can nest, and can hold comments with brackets in them
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != NONE) {
+            switch (c) {
+                case '(' -> depth++;
+                case ')' -> depth--;
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static boolean isResult(CharSequence token) {
+        return contentEquals(token, "1-0") || contentEquals(token, "0-1") || contentEquals(token, "1/2-1/2")
+                || contentEquals(token, PgnGame.UNFINISHED);
+    }
+
+    private static boolean contentEquals(CharSequence token, String text) {
+        return token.length() == text.length() && text.contentEquals(token);
+    }
+
+    //Strips a move number like 12. or 12... off the front of the token, and drops NAGs like $1
+    private static String moveIn(StringBuilder token) {
+        if (token.charAt(0) == '$') {
+            return null;
+        }
+        int start = 0;
+        while (start < token.length() && Character.isDigit(token.charAt(start))) {
+            start++;
+        }
+        if (start < token.length() && token.charAt(start) == '.') {
+            while (start < token.length() && token.charAt(start) == '.') {
+                start++;
+            }
+        } else {
+            start = 0;
+        }
+        return start == token.length() ? null : token.substring(start);
+    }
+}
@@ -0,0 +1,119 @@
+package chess;
+
+/**
+ * Reads moves in Standard Algebraic Notation, the move format PGN uses, e.g. e4, Nxf3, exd6, R1a3, e8=Q+ or O-O.
+ * A move is matched against the legal moves of the position, so check and annotation suffixes don't have to be
+ * right, but the move has to be legal and unambiguous.
+ */
+final class San {
+
+    private San() {
+    }
+
+    /**
+     * @param moves scratch space for the legal moves
+     * @return the packed move, with its castling or en passant flag when it has one
+     * @throws InvalidMoveException if the move isn't valid SAN, or isn't exactly one legal move here
+     */
+    static int parse(ChessGame game, String san, MoveList moves) throws InvalidMoveException {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        moves.clear();
+        MoveGenerator.generateLegalMoves(game, moves);
+
+        if (isCastling(san, end)) {
+            //O-O-O has two more characters than O-O and lands the king on the c-file instead of the g-file
+            int kingColumn = end == 5 ? 3 : 7;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if ((PackedMove.flags(move) & PackedMove.CASTLING) != 0
+                        && Bitboards.column(PackedMove.to(move)) == kingColumn) {
+                    return move;
+                }
+            }
+            throw new InvalidMoveException("Illegal castling move " + san);
+        }
+
+        int start = 0;
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        if (end > 0 && "KQRBN".indexOf(san.charAt(0)) >= 0) {
+            type = pieceType(san.charAt(0));
+            start = 1;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (type == ChessPiece.PieceType.PAWN && end > 2 && "QRBN".indexOf(san.charAt(end - 1)) >= 0) {
+            promotion = pieceType(san.charAt(end - 1));
+            end--;
+            if (san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end - start < 2 || !isFile(san.charAt(end - 2)) || !isRank(san.charAt(end - 1))) {
+            throw new InvalidMoveException("Not a SAN move: " + san);
+        }
+        int to = Bitboards.square(san.charAt(end - 1) - '0', san.charAt(end - 2) - 'a' + 1);
+
+        //Anything between the piece and the destination is a capture mark or the start square's file and/or rank
+        int fromColumn = 0;
+        int fromRow = 0;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (isFile(c)) {
+                fromColumn = c - 'a' + 1;
+            } else if (isRank(c)) {
+                fromRow = c - '0';
+            } else if (c != 'x') {
+                throw new InvalidMoveException("Not a SAN move: " + san);
+            }
+        }
+
+        ChessBoard board = game.getBoard();
+        int found = 0;
+        int matches = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) != to || PackedMove.promotion(move) != promotion
+                    || (PackedMove.flags(move) & PackedMove.CASTLING) != 0
+                    || board.getPiece(from).getPieceType() != type
+                    || (fromColumn != 0 && Bitboards.column(from) != fromColumn)
+                    || (fromRow != 0 && Bitboards.row(from) != fromRow)) {
+                continue;
+            }
+            found = move;
+            matches++;
+        }
+        if (matches == 0) {
+            throw new InvalidMoveException("Illegal move " + san);
+        }
+        if (matches > 1) {
+            throw new InvalidMoveException("Ambiguous move " + san);
+        }
+        return found;
+    }
+
+    private static boolean isCastling(String san, int end) {
+        return (end == 3 || end == 5) && (san.startsWith("O-O") || san.startsWith("0-0"))
+                && (end == 3 || san.startsWith("-O", 3) || san.startsWith("-0", 3));
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+
+    private static ChessPiece.PieceType pieceType(char c) {
+        return switch (c) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            default -> ChessPiece.PieceType.KNIGHT;
+        };
+    }
+}
@@ -0,0 +1,308 @@
+package chess;
+
+/**
+ * A negamax alpha-beta search with iterative deepening and a captures-only quiescence search at the leaves.
+ * <p>
+ * Each iteration searches one ply deeper than the last and puts the best root move first, so the next iteration
+ * tries it first. Inside the tree, moves come from a {@link MovePicker} so the likely best ones are searched first. The search stops when it reaches the depth limit, runs out of time or is told to {@link #stop()};
+ * the move from the last finished iteration is returned.
+ * <p>
+ * Results are cached in a {@link TranspositionTable}, which may be shared with other searches running at the same
+ * time. A Search reuses its move buffers between calls though, so keep one per thread rather than sharing it.
+ * <p>
+ * Given a {@link Tablebase}, positions it covers are scored from it instead of being searched.
+ */
+public class Search {
+    public static final int MATE_SCORE = 100_000;
+    public static final int MAX_PLY = 128;
+
+    private static final int INFINITY = MATE_SCORE + 1;
+    //Checking the clock is comparatively slow, so only do it every few thousand nodes
+    private static final int TIME_CHECK_MASK = 2047;
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    private final MoveOrdering ordering = new MoveOrdering();
+    private ChessGame game;
+    private ChessBoard board;
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    public Search(TranspositionTable table) {
+        this(table, null);
+    }
+
+    /**
+     * @param tablebase endgame results to use inside the search, or null for none
+     */
+    public Search(TranspositionTable table, Tablebase tablebase) {
+        this.table = table;
+        this.tablebase = tablebase;
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker();
+        }
+    }
+
+    /**
+     * Finds the best move for the side to move. The game passed in is not modified.
+     *
+     * @param game   the position to search
+     * @param limits when to stop searching
+     * @return the best move found along with search statistics
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, 1);
+    }
+
+    /**
+     * Searches starting from a deeper first iteration. Lazy SMP helper threads use this so they aren't all working
+     * on the same depth at the same time.
+     */
+    SearchResult search(ChessGame game, SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        this.game = game.copy();
+        board = this.game.getBoard();
+        ChessGame.TeamColor color = game.getTeamTurn();
+        nodes = 0;
+        stopped = false;
+        deadline = start + Math.min(limits.timeMillis(), Long.MAX_VALUE / 2_000_000) * 1_000_000;
+
+        ordering.newSearch();
+
+        MoveList rootMoves = new MoveList();
+        MoveGenerator.generateLegalMoves(this.game, rootMoves);
+        if (rootMoves.isEmpty()) {
+            stopRequested = false;
+            int score = isInCheck(color) ? -MATE_SCORE : 0;
+            return new SearchResult(null, score, 0, 0, elapsedMillis(start));
+        }
+
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = Math.max(1, firstDepth); depth <= Math.min(limits.maxDepth(), MAX_PLY - 1); depth++) {
+            int score = searchRoot(rootMoves, depth, color);
+            if (stopped) {
+                break;
+            }
+            bestScore = score;
+            completedDepth = depth;
+            //A forced mate can't be improved on by searching deeper
+            if (isMateScore(score) || rootMoves.size() == 1) {
+                break;
+            }
+        }
+        //Cleared at the end rather than the start, so a stop that comes before the search gets going still counts
+        stopRequested = false;
+        return new SearchResult(PackedMove.toChessMove(rootMoves.get(0)), bestScore, completedDepth, nodes,
+                elapsedMillis(start));
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. Safe to call from another thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * @return True if the score means one side can force checkmate
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE_SCORE - MAX_PLY;
+    }
+
+    //Searches every root move and moves the best one to the front of the list
+    private int searchRoot(MoveList rootMoves, int depth, ChessGame.TeamColor color) {
+        ChessGame.TeamColor opponent = ChessGame.opposingTeam(color);
+        int alpha = -INFINITY;
+        int bestIndex = 0;
+        for (int i = 0; i < rootMoves.size(); i++) {
+            game.makeMove(rootMoves.get(i));
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha, opponent);
+            game.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestIndex = i;
+            }
+        }
+
+        int best = rootMoves.get(bestIndex);
+        for (int i = bestIndex; i > 0; i--) {
+            rootMoves.set(i, rootMoves.get(i - 1));
+        }
+        rootMoves.set(0, best);
+        return alpha;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, ChessGame.TeamColor color) {
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta, color);
+        }
+        if (countNodeAndCheckStop()) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(board, color);
+        }
+        //One repetition is enough to call it a draw, since whatever worked the first time will work again
+        if (game.isRepetition() || game.isDrawByFiftyMoveRule()) {
+            return 0;
+        }
+        if (tablebase != null && Tablebase.isCovered(game)
+                && Long.bitCount(board.getOccupied()) <= tablebase.maxPieces()) {
+            int value = tablebase.probeValue(board, color);
+            if (value >= 0 && value != Tablebase.ILLEGAL) {
+                return tablebaseScore(value, ply);
+            }
+        }
+
+        long key = game.getPositionKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != TranspositionTable.NO_ENTRY) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return Math.max(alpha, Math.min(beta, score));
+                }
+            }
+        }
+
+        ChessGame.TeamColor opponent = ChessGame.opposingTeam(color);
+        MovePicker picker = pickers[ply];
+        picker.init(game, hashMove, ordering, ply);
+
+        int legalMoves = 0;
+        int bestMove = 0;
+        int bound = TranspositionTable.UPPER_BOUND;
+        int move;
+        while ((move = picker.next()) != 0) {
+            game.makeMove(move);
+            if (isInCheck(color)) {
+                game.unmakeMove();
+                continue;
+            }
+            legalMoves++;
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, opponent);
+            game.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                ordering.recordCutoff(board, color, move, ply, depth);
+                table.store(key, move, scoreToTable(beta, ply), depth, TranspositionTable.LOWER_BOUND);
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                bound = TranspositionTable.EXACT;
+            }
+        }
+
+        if (legalMoves == 0) {
+            //Prefer the quickest mate, and delay being mated as long as possible
+            return isInCheck(color) ? -MATE_SCORE + ply : 0;
+        }
+        table.store(key, bestMove, scoreToTable(alpha, ply), depth, bound);
+        return alpha;
+    }
+
+    //Scores a tablebase value like a mate found by the search, unless the mate is too far away to fit in a mate score
+    private static int tablebaseScore(int value, int ply) {
+        if (value == Tablebase.DRAW) {
+            return 0;
+        }
+        int distance = value - 1;
+        int score = ply + distance < MAX_PLY ? MATE_SCORE - ply - distance : MATE_SCORE - MAX_PLY - 1;
+        return distance % 2 == 1 ? score : -score;
+    }
+
+    //Mate scores count plies from the root, but the table is shared between roots, so store them relative to the node
+    private static int scoreToTable(int score, int ply) {
+        if (isMateScore(score)) {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (isMateScore(score)) {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
+    }
+
+    //Only searches captures and promotions, so the evaluation isn't taken in the middle of an exchange
+    private int quiescence(int ply, int alpha, int beta, ChessGame.TeamColor color) {
+        if (countNodeAndCheckStop()) {
+            return 0;
+        }
+        int standPat = Evaluation.evaluate(board, color);
+        if (ply >= MAX_PLY || standPat >= beta) {
+            return standPat >= beta ? beta : standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        ChessGame.TeamColor opponent = ChessGame.opposingTeam(color);
+        MovePicker picker = pickers[ply];
+        picker.initCaptures(game);
+
+        int move;
+        while ((move = picker.next()) != 0) {
+            game.makeMove(move);
+            if (isInCheck(color)) {
+                game.unmakeMove();
+                continue;
+            }
+            int score = -quiescence(ply + 1, -beta, -alpha, opponent);
+            game.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    private boolean countNodeAndCheckStop() {
+        nodes++;
+        if ((nodes & TIME_CHECK_MASK) == 0 && (stopRequested || System.nanoTime() > deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    private boolean isInCheck(ChessGame.TeamColor color) {
+        int kingSquare = board.getKingSquare(color);
+        return kingSquare >= 0 && board.isSquareAttacked(kingSquare, ChessGame.opposingTeam(color));
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,23 @@
+package chess;
+
+/**
+ * How long a search may run: it stops at whichever of the depth or time limit comes first
+ *
+ * @param maxDepth   the deepest iteration to search, in plies
+ * @param timeMillis the wall-clock budget in milliseconds
+ * @param threads    how many threads a {@link LazySmpSearch} should use; a plain {@link Search} always uses one
+ */
+public record SearchLimits(int maxDepth, long timeMillis, int threads) {
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, Long.MAX_VALUE / 1_000_000, 1);
+    }
+
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(Search.MAX_PLY - 1, timeMillis, 1);
+    }
+
+    public SearchLimits withThreads(int threads) {
+        return new SearchLimits(maxDepth, timeMillis, threads);
+    }
+}
@@ -0,0 +1,17 @@
+package chess;
+
+/**
+ * The outcome of a search
+ *
+ * @param bestMove      the move to play, or null if the side to move has no legal moves
+ * @param score         the score of the best move in centipawns for the side to move; see {@link Search#isMateScore}
+ * @param depth         the deepest iteration that finished
+ * @param nodes         the number of positions visited
+ * @param elapsedMillis how long the search ran
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedMillis) {
+
+    public long nodesPerSecond() {
+        return elapsedMillis == 0 ? nodes * 1000 : nodes * 1000 / elapsedMillis;
+    }
+}
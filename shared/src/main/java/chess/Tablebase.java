@@ -0,0 +1,461 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exact results for endgames with only a few pieces, built ahead of time by {@link TablebaseGenerator}.
+ * <p>
+ * There is one table per material signature, e.g. KQK or KRKP, with the stronger side written first and playing
+ * white; positions where black is the stronger side are looked up with the colours swapped. A table holds one
+ * byte per position for each side to move: 0 for a draw, 255 for a position that can't happen, and otherwise the
+ * distance to mate in plies plus one. A side to move that mates first always has an odd distance and one that gets
+ * mated an even one, so the distance alone says who wins.
+ * <p>
+ * Positions are indexed by the square of every piece, after mirroring the board so the white king sits on the
+ * left half (or, without pawns, in the a1-d1-d4 triangle). All tables live in one file that is memory mapped on
+ * open.
+ */
+public class Tablebase {
+    static final int DRAW = 0;
+    static final int ILLEGAL = 0xFF;
+    static final int MAX_DISTANCE = 253;
+
+    private static final int FILE_MAGIC = 0x43544231;
+    private static final int NOT_COVERED = -1;
+
+    /**
+     * A tablebase result from the point of view of the side to move
+     */
+    public enum Outcome {
+        WIN,
+        DRAW,
+        LOSS
+    }
+
+    /**
+     * @param outcome     whether the side to move wins, draws or loses with best play
+     * @param pliesToMate how many plies until checkmate with best play, or 0 for a draw
+     */
+    public record Result(Outcome outcome, int pliesToMate) {
+    }
+
+    //Tables by material key, once as stored and once with the colours swapped
+    private final Map<Integer, Lookup> lookups = new HashMap<>();
+    private int maxPieces = 2;
+
+    private record Lookup(Table table, ByteBuffer values, boolean flip) {
+    }
+
+    Tablebase() {
+    }
+
+    /**
+     * Maps a tablebase file written by {@link TablebaseGenerator} into memory
+     */
+    public static Tablebase open(Path path) throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            //The mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.getInt() != FILE_MAGIC) {
+            throw new IOException("Not a tablebase file: " + path);
+        }
+        Tablebase tablebase = new Tablebase();
+        int tableCount = file.getInt();
+        for (int i = 0; i < tableCount; i++) {
+            byte[] signature = new byte[file.get()];
+            file.get(signature);
+            long offset = file.getLong();
+            Table table = new Table(new String(signature, StandardCharsets.US_ASCII));
+            tablebase.add(table, file.slice((int) offset, table.size()));
+        }
+        return tablebase;
+    }
+
+    /**
+     * Writes the given tables, with their values, in the format {@link #open} reads
+     */
+    static void write(Path path, Map<Table, byte[]> tables) throws IOException {
+        int headerSize = 2 * Integer.BYTES;
+        for (Table table : tables.keySet()) {
+            headerSize += 1 + table.signature().length() + Long.BYTES;
+        }
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(FILE_MAGIC).putInt(tables.size());
+        long offset = headerSize;
+        for (Table table : tables.keySet()) {
+            header.put((byte) table.signature().length());
+            header.put(table.signature().getBytes(StandardCharsets.US_ASCII));
+            header.putLong(offset);
+            offset += table.size();
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            for (byte[] values : tables.values()) {
+                writeFully(channel, ByteBuffer.wrap(values));
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    void add(Table table, ByteBuffer values) {
+        lookups.put(table.materialKey(false), new Lookup(table, values, false));
+        //Symmetric material like KQKQ is already stored both ways round
+        lookups.putIfAbsent(table.materialKey(true), new Lookup(table, values, true));
+        maxPieces = Math.max(maxPieces, table.pieceCount());
+    }
+
+    /**
+     * @return the most pieces, kings included, of any position this tablebase covers
+     */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    public boolean contains(String signature) {
+        Table table = new Table(signature);
+        Lookup lookup = lookups.get(table.materialKey(false));
+        return lookup != null && lookup.table().signature().equals(table.signature());
+    }
+
+    /**
+     * Looks up a game's position, unless castling or en passant is still possible. The tables assume neither is,
+     * so a capture en passant could turn a draw they report into a win.
+     *
+     * @return the exact result for the side to move, or null if the tablebase doesn't cover the position
+     */
+    public Result probe(ChessGame game) {
+        if (!isCovered(game)) {
+            return null;
+        }
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * @return false if the game can still castle or capture en passant, which the tables don't encode
+     */
+    static boolean isCovered(ChessGame game) {
+        return game.castlingRights() == 0 && game.enPassantSquare() == ChessGame.NO_EN_PASSANT;
+    }
+
+    /**
+     * Looks up a position. Castling and en passant rights are ignored.
+     *
+     * @return the exact result for the side to move, or null if the tablebase doesn't cover the material on the
+     * board
+     */
+    public Result probe(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        int value = probeValue(board, sideToMove);
+        if (value == NOT_COVERED || value == ILLEGAL) {
+            return null;
+        }
+        if (value == DRAW) {
+            return new Result(Outcome.DRAW, 0);
+        }
+        int distance = value - 1;
+        return new Result(distance % 2 == 1 ? Outcome.WIN : Outcome.LOSS, distance);
+    }
+
+    /**
+     * Looks up a position without allocating a result, for use inside a search
+     *
+     * @return the raw table value (see the class comment), or -1 if the material isn't covered
+     */
+    int probeValue(ChessBoard board, ChessGame.TeamColor sideToMove) {
+        int pieces = Long.bitCount(board.getOccupied());
+        if (pieces > maxPieces || board.getKingSquare(ChessGame.TeamColor.WHITE) < 0
+                || board.getKingSquare(ChessGame.TeamColor.BLACK) < 0) {
+            return NOT_COVERED;
+        }
+        if (pieces == 2) {
+            return DRAW;
+        }
+        Lookup lookup = lookups.get(materialKey(board));
+        if (lookup == null) {
+            return NOT_COVERED;
+        }
+        return lookup.values().get(lookup.table().index(board, sideToMove, lookup.flip())) & 0xFF;
+    }
+
+    /**
+     * Packs how many of each piece each side has into an int, two bits per colour and type. Kings aren't counted.
+     *
+     * @return the key, or -1 if some side has more than three of a piece
+     */
+    static int materialKey(ChessBoard board) {
+        int key = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : Table.NON_KING_TYPES) {
+                int count = Long.bitCount(board.getPieces(color, type));
+                if (count > 3) {
+                    return -1;
+                }
+                key |= count << (2 * Bitboards.pieceIndex(color, type));
+            }
+        }
+        return key;
+    }
+
+    /**
+     * How the positions of one material signature map to indexes in its table
+     */
+    static final class Table {
+        static final ChessPiece.PieceType[] NON_KING_TYPES = {ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+                ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.PAWN};
+        private static final String PIECE_LETTERS = "QRBNP";
+
+        //The squares the white king is moved onto by mirroring: a1-d1-d4 without pawns, files a-d with them
+        private static final int[] TRIANGLE = {0, 1, 2, 3, 9, 10, 11, 18, 19, 27};
+        private static final int[] HALF_BOARD = new int[32];
+        private static final int[] TRIANGLE_INDEX = new int[Bitboards.SQUARES];
+        private static final int[] HALF_BOARD_INDEX = new int[Bitboards.SQUARES];
+
+        static {
+            for (int i = 0; i < HALF_BOARD.length; i++) {
+                HALF_BOARD[i] = (i / 4) * 8 + i % 4;
+            }
+            Arrays.fill(TRIANGLE_INDEX, -1);
+            Arrays.fill(HALF_BOARD_INDEX, -1);
+            for (int i = 0; i < TRIANGLE.length; i++) {
+                TRIANGLE_INDEX[TRIANGLE[i]] = i;
+            }
+            for (int i = 0; i < HALF_BOARD.length; i++) {
+                HALF_BOARD_INDEX[HALF_BOARD[i]] = i;
+            }
+        }
+
+        private final String signature;
+        //White king, black king, then the other pieces in signature order
+        private final ChessPiece[] pieces;
+        private final boolean pawns;
+        private final int[] kingSquares;
+        private final int[] kingIndex;
+        //Probes happen inside the search, so each thread reuses one array for the squares instead of allocating
+        private final ThreadLocal<int[]> probeSquares;
+
+        Table(String signature) {
+            this.signature = canonicalSignature(signature);
+            int split = this.signature.indexOf('K', 1);
+            String white = this.signature.substring(1, split);
+            String black = this.signature.substring(split + 1);
+            pieces = new ChessPiece[2 + white.length() + black.length()];
+            pieces[0] = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+            pieces[1] = ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+            for (int i = 0; i < white.length(); i++) {
+                pieces[2 + i] = ChessPiece.of(ChessGame.TeamColor.WHITE, pieceType(white.charAt(i)));
+            }
+            for (int i = 0; i < black.length(); i++) {
+                pieces[2 + white.length() + i] = ChessPiece.of(ChessGame.TeamColor.BLACK, pieceType(black.charAt(i)));
+            }
+            pawns = this.signature.indexOf('P') >= 0;
+            kingSquares = pawns ? HALF_BOARD : TRIANGLE;
+            kingIndex = pawns ? HALF_BOARD_INDEX : TRIANGLE_INDEX;
+            int pieceCount = pieces.length;
+            probeSquares = ThreadLocal.withInitial(() -> new int[pieceCount]);
+        }
+
+        String signature() {
+            return signature;
+        }
+
+        ChessPiece[] pieces() {
+            return pieces;
+        }
+
+        int pieceCount() {
+            return pieces.length;
+        }
+
+        boolean hasPawns() {
+            return pawns;
+        }
+
+        /**
+         * @return the number of entries: one per placement of the pieces per side to move
+         */
+        int size() {
+            return kingSquares.length * (1 << (6 * (pieces.length - 1))) * 2;
+        }
+
+        int materialKey(boolean flip) {
+            int key = 0;
+            for (int i = 2; i < pieces.length; i++) {
+                ChessGame.TeamColor color = flip ? ChessGame.opposingTeam(pieces[i].getTeamColor())
+                        : pieces[i].getTeamColor();
+                key += 1 << (2 * Bitboards.pieceIndex(color, pieces[i].getPieceType()));
+            }
+            return key;
+        }
+
+        /**
+         * @param flip True to look the position up with the colours swapped
+         * @return the index of a position on the board, which must have this table's material
+         */
+        int index(ChessBoard board, ChessGame.TeamColor sideToMove, boolean flip) {
+            int[] squares = probeSquares.get();
+            long taken = 0L;
+            for (int i = 0; i < pieces.length; i++) {
+                ChessGame.TeamColor color = flip ? ChessGame.opposingTeam(pieces[i].getTeamColor())
+                        : pieces[i].getTeamColor();
+                //Two of the same piece take the lowest squares in turn
+                long candidates = board.getPieces(color, pieces[i].getPieceType()) & ~taken;
+                int square = Long.numberOfTrailingZeros(candidates);
+                taken |= Bitboards.bit(square);
+                squares[i] = flip ? square ^ 56 : square;
+            }
+            boolean white = (sideToMove == ChessGame.TeamColor.WHITE) != flip;
+            return index(squares, white);
+        }
+
+        /**
+         * @return the index of the pieces on the given squares, in table order and already colour swapped if needed
+         */
+        int index(int[] squares, boolean whiteToMove) {
+            int king = squares[0];
+            boolean flipFile = (king & 7) > 3;
+            boolean flipRank = !pawns && (king >>> 3) > 3;
+            int mirroredKing = mirror(king, flipFile, flipRank, false);
+            int row = mirroredKing >>> 3;
+            int column = mirroredKing & 7;
+            if (pawns || row < column) {
+                return index(squares, whiteToMove, flipFile, flipRank, false);
+            }
+            if (row > column) {
+                return index(squares, whiteToMove, flipFile, flipRank, true);
+            }
+            //A king on the diagonal leaves the position and its reflection both in the table, so pick one
+            return Math.min(index(squares, whiteToMove, flipFile, flipRank, false),
+                    index(squares, whiteToMove, flipFile, flipRank, true));
+        }
+
+        private int index(int[] squares, boolean whiteToMove, boolean flipFile, boolean flipRank, boolean transpose) {
+            int index = kingIndex[mirror(squares[0], flipFile, flipRank, transpose)];
+            int previous = -1;
+            for (int i = 1; i < squares.length; i++) {
+                int square = mirror(squares[i], flipFile, flipRank, transpose);
+                //Identical pieces are interchangeable, so store them in ascending order
+                if (i > 2 && pieces[i] == pieces[i - 1] && square < previous) {
+                    index = (index & ~63) | square;
+                    square = previous;
+                }
+                index = index * 64 + square;
+                previous = square;
+            }
+            return index * 2 + (whiteToMove ? 0 : 1);
+        }
+
+        /**
+         * Fills in the squares of the pieces for an index
+         *
+         * @return True if white is to move
+         */
+        boolean decode(int index, int[] squares) {
+            boolean whiteToMove = (index & 1) == 0;
+            int rest = index >>> 1;
+            for (int i = pieces.length - 1; i > 0; i--) {
+                squares[i] = rest & 63;
+                rest >>>= 6;
+            }
+            squares[0] = kingSquares[rest];
+            return whiteToMove;
+        }
+
+        private static int mirror(int square, boolean flipFile, boolean flipRank, boolean transpose) {
+            if (flipFile) {
+                square ^= 7;
+            }
+            if (flipRank) {
+                square ^= 56;
+            }
+            if (transpose) {
+                square = ((square & 7) << 3) | (square >>> 3);
+            }
+            return square;
+        }
+
+        private static ChessPiece.PieceType pieceType(char letter) {
+            int index = PIECE_LETTERS.indexOf(letter);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown piece in material signature: " + letter);
+            }
+            return NON_KING_TYPES[index];
+        }
+
+        /**
+         * Puts a signature like KRKQ into the form tables are stored under, with the stronger side first and each
+         * side's pieces from most to least valuable
+         */
+        static String canonicalSignature(String signature) {
+            int split = signature.indexOf('K', 1);
+            if (!signature.startsWith("K") || split < 0) {
+                throw new IllegalArgumentException("Material signature should look like KQKR: " + signature);
+            }
+            String white = sortPieces(signature.substring(1, split));
+            String black = sortPieces(signature.substring(split + 1));
+            return "K" + (isStronger(black, white) ? black + "K" + white : white + "K" + black);
+        }
+
+        private static String sortPieces(String pieces) {
+            char[] letters = pieces.toCharArray();
+            for (char letter : letters) {
+                pieceType(letter);
+            }
+            Arrays.sort(letters);
+            StringBuilder sorted = new StringBuilder();
+            for (char letter : PIECE_LETTERS.toCharArray()) {
+                for (char c : letters) {
+                    if (c == letter) {
+                        sorted.append(c);
+                    }
+                }
+            }
+            return sorted.toString();
+        }
+
+        //More pieces is stronger; otherwise compare piece by piece from the most valuable
+        private static boolean isStronger(String first, String second) {
+            if (first.length() != second.length()) {
+                return first.length() > second.length();
+            }
+            for (int i = 0; i < first.length(); i++) {
+                int difference = PIECE_LETTERS.indexOf(first.charAt(i)) - PIECE_LETTERS.indexOf(second.charAt(i));
+                if (difference != 0) {
+                    return difference < 0;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Table table && signature.equals(table.signature);
+        }
+
+        @Override
+        public int hashCode() {
+            return signature.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return signature;
+        }
+    }
+}
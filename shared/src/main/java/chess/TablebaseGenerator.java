@@ -0,0 +1,490 @@
+package chess;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds {@link Tablebase} tables by working backwards from checkmate.
+ * <p>
+ * Each table starts with every checkmate and stalemate resolved. Pass n then resolves the positions whose result
+ * is n plies from mate: a win if some move reaches a position lost in n - 1 plies, and a loss if every move reaches
+ * a position won in at most n - 1 plies, the longest being exactly n - 1. Captures and promotions lead into smaller
+ * tables, which are built first. Whatever is still unresolved when the passes stop finding anything is a draw.
+ * <p>
+ * Rather than generating moves backwards, each pass re-checks the unresolved positions by making their moves and
+ * looking the results up. That is simpler and plenty fast for up to four pieces, and the unresolved list shrinks
+ * every pass.
+ * <p>
+ * Run from the command line as {@code <output file> [signatures...]}, e.g. {@code tablebase.bin KQK KRKP}, to write a
+ * tablebase file. The tables those signatures need are added automatically; with no signatures it builds every
+ * table with up to four pieces.
+ */
+public class TablebaseGenerator {
+    private static final int MAX_PIECES = 4;
+    private static final int UNRESOLVED = -1;
+    private static final String PROMOTION_LETTERS = "QRBN";
+
+    private final Tablebase finished = new Tablebase();
+    private final Map<Tablebase.Table, byte[]> tables = new LinkedHashMap<>();
+    private final PrintStream log;
+
+    /**
+     * @param log where to report progress, or null for none
+     */
+    public TablebaseGenerator(PrintStream log) {
+        this.log = log;
+    }
+
+    /**
+     * Builds the tables for the given material signatures along with every table they lead to
+     *
+     * @return a tablebase holding everything built so far
+     */
+    public Tablebase generate(Collection<String> signatures) {
+        for (String signature : withDependencies(signatures)) {
+            Tablebase.Table table = new Tablebase.Table(signature);
+            if (tables.containsKey(table)) {
+                continue;
+            }
+            long start = System.nanoTime();
+            byte[] values = generateTable(table);
+            tables.put(table, values);
+            finished.add(table, ByteBuffer.wrap(values));
+            if (log != null) {
+                log.printf("%-6s %,12d positions in %6.1f s, longest mate %d plies%n", table, values.length,
+                        (System.nanoTime() - start) / 1e9, longestMate(values));
+            }
+        }
+        return finished;
+    }
+
+    public void write(Path path) throws IOException {
+        Tablebase.write(path, tables);
+    }
+
+    /**
+     * @return every canonical material signature with up to the given number of pieces, kings included
+     */
+    static List<String> allSignatures(int maxPieces) {
+        Set<String> signatures = new LinkedHashSet<>();
+        addSignatures("", maxPieces - 2, signatures);
+        return sortByDependencies(signatures);
+    }
+
+    private static void addSignatures(String pieces, int remaining, Set<String> signatures) {
+        if (!pieces.isEmpty()) {
+            //Every way of splitting the pieces between the two sides
+            for (int mask = 0; mask < 1 << pieces.length(); mask++) {
+                StringBuilder white = new StringBuilder();
+                StringBuilder black = new StringBuilder();
+                for (int i = 0; i < pieces.length(); i++) {
+                    ((mask & (1 << i)) == 0 ? white : black).append(pieces.charAt(i));
+                }
+                signatures.add(Tablebase.Table.canonicalSignature("K" + white + "K" + black));
+            }
+        }
+        if (remaining > 0) {
+            for (char piece : "QRBNP".toCharArray()) {
+                addSignatures(pieces + piece, remaining - 1, signatures);
+            }
+        }
+    }
+
+    /**
+     * @return the signatures plus every signature reachable from them by a capture or promotion, in an order where
+     * each table comes after the ones it needs
+     */
+    static List<String> withDependencies(Collection<String> signatures) {
+        Set<String> all = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        for (String signature : signatures) {
+            pending.add(Tablebase.Table.canonicalSignature(signature));
+        }
+        while (!pending.isEmpty()) {
+            String signature = pending.poll();
+            if (signature.length() <= 2 || !all.add(signature)) {
+                continue;
+            }
+            for (int i = 1; i < signature.length(); i++) {
+                char piece = signature.charAt(i);
+                if (piece == 'K') {
+                    continue;
+                }
+                //The piece is captured...
+                pending.add(Tablebase.Table.canonicalSignature(signature.substring(0, i) + signature.substring(i + 1)));
+                //...or, for a pawn, promotes
+                if (piece == 'P') {
+                    for (char promotion : PROMOTION_LETTERS.toCharArray()) {
+                        pending.add(Tablebase.Table.canonicalSignature(
+                                signature.substring(0, i) + promotion + signature.substring(i + 1)));
+                    }
+                }
+            }
+        }
+        return sortByDependencies(all);
+    }
+
+    //Captures make tables smaller and promotions take away a pawn, so fewer pieces then fewer pawns goes first
+    private static List<String> sortByDependencies(Collection<String> signatures) {
+        List<String> sorted = new ArrayList<>(signatures);
+        sorted.sort(Comparator.comparingInt(String::length)
+                .thenComparingLong(signature -> signature.chars().filter(c -> c == 'P').count()));
+        return sorted;
+    }
+
+    private byte[] generateTable(Tablebase.Table table) {
+        byte[] values = new byte[table.size()];
+        boolean[] resolved = new boolean[values.length];
+        //The last pass each position was checked in, so a position reached twice in one pass is only checked once
+        byte[] checked = new byte[values.length];
+        Positions[] scheduled = new Positions[Tablebase.MAX_DISTANCE + 2];
+        Positions frontier = new Positions();
+        int[] squares = new int[table.pieceCount()];
+        ChessBoard board = new ChessBoard();
+        MoveList moves = new MoveList();
+
+        //Checkmates, stalemates and impossible positions first, and when moves into smaller tables could settle the
+        //rest
+        for (int index = 0; index < values.length; index++) {
+            ChessGame.TeamColor sideToMove = table.decode(index, squares) ? ChessGame.TeamColor.WHITE
+                    : ChessGame.TeamColor.BLACK;
+            //Positions that are stored under another index, such as a reflection, are never looked up
+            if (table.index(squares, sideToMove == ChessGame.TeamColor.WHITE) != index
+                    || !place(board, table, squares)) {
+                values[index] = (byte) Tablebase.ILLEGAL;
+                resolved[index] = true;
+                continue;
+            }
+            if (isInCheck(board, ChessGame.opposingTeam(sideToMove))) {
+                values[index] = (byte) Tablebase.ILLEGAL;
+                resolved[index] = true;
+            } else if (!MoveGenerator.hasLegalMove(board, sideToMove, moves)) {
+                boolean mated = isInCheck(board, sideToMove);
+                values[index] = (byte) (mated ? 1 : Tablebase.DRAW);
+                resolved[index] = true;
+                if (mated) {
+                    frontier.add(index);
+                }
+            } else {
+                int pass = firstExitPass(board, sideToMove, moves);
+                if (pass > 0) {
+                    schedule(scheduled, pass, index);
+                }
+            }
+            unplace(board, squares);
+        }
+
+        //Pass n settles every position n plies from mate, working back from the ones settled in the pass before
+        for (int plies = 1; plies <= Tablebase.MAX_DISTANCE; plies++) {
+            Positions next = new Positions();
+            Positions candidates = new Positions();
+            for (int i = 0; i < frontier.size(); i++) {
+                int index = frontier.get(i);
+                boolean childLoses = (values[index] & 0xFF) % 2 == 1;
+                ChessGame.TeamColor sideToMove = table.decode(index, squares) ? ChessGame.TeamColor.WHITE
+                        : ChessGame.TeamColor.BLACK;
+                place(board, table, squares);
+                addPredecessors(table, board, ChessGame.opposingTeam(sideToMove), candidates);
+                unplace(board, squares);
+                for (int j = 0; j < candidates.size(); j++) {
+                    int parent = candidates.get(j);
+                    if (resolved[parent]) {
+                        continue;
+                    }
+                    if (childLoses) {
+                        //Moving into a lost position is a win; nothing shorter was found in earlier passes
+                        values[parent] = (byte) (plies + 1);
+                        resolved[parent] = true;
+                        next.add(parent);
+                    } else {
+                        schedule(scheduled, plies, parent);
+                    }
+                }
+                candidates.clear();
+            }
+
+            Positions toCheck = scheduled[plies];
+            scheduled[plies] = null;
+            for (int i = 0; toCheck != null && i < toCheck.size(); i++) {
+                int index = toCheck.get(i);
+                if (resolved[index] || checked[index] == (byte) plies) {
+                    continue;
+                }
+                checked[index] = (byte) plies;
+                ChessGame.TeamColor sideToMove = table.decode(index, squares) ? ChessGame.TeamColor.WHITE
+                        : ChessGame.TeamColor.BLACK;
+                place(board, table, squares);
+                int value = resolve(table, values, resolved, board, sideToMove, plies, moves);
+                unplace(board, squares);
+                if (value != UNRESOLVED) {
+                    values[index] = (byte) value;
+                    resolved[index] = true;
+                    next.add(index);
+                }
+            }
+
+            frontier = next;
+            if (frontier.size() == 0 && nothingScheduled(scheduled, plies + 1)) {
+                break;
+            }
+        }
+        //Anything still unresolved can't be forced either way, which leaves its value at DRAW
+        return values;
+    }
+
+    /**
+     * Looks at the moves out of the table, which are captures and promotions, for the earliest pass that could
+     * settle the position: the pass after the quickest win through one, or after the slowest loss if every one of
+     * them loses. Other moves are settled by working back from the positions they reach.
+     *
+     * @return the pass, or 0 if moves out of the table can't settle the position
+     */
+    private int firstExitPass(ChessBoard board, ChessGame.TeamColor sideToMove, MoveList moves) {
+        ChessGame.TeamColor opponent = ChessGame.opposingTeam(sideToMove);
+        moves.clear();
+        MoveGenerator.generateMoves(board, sideToMove, moves);
+        int quickestWin = Integer.MAX_VALUE;
+        int slowestLoss = -1;
+        boolean exitsAllLose = true;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (!changesMaterial(board, move)) {
+                continue;
+            }
+            board.makeMove(move);
+            if (isInCheck(board, sideToMove)) {
+                board.unmakeMove();
+                continue;
+            }
+            int child = finished.probeValue(board, opponent);
+            board.unmakeMove();
+            if (child < 0) {
+                throw new IllegalStateException("Missing table for a capture or promotion");
+            }
+            if (child == Tablebase.DRAW) {
+                exitsAllLose = false;
+            } else if ((child - 1) % 2 == 0) {
+                quickestWin = Math.min(quickestWin, child);
+                exitsAllLose = false;
+            } else {
+                slowestLoss = Math.max(slowestLoss, child);
+            }
+        }
+        if (quickestWin != Integer.MAX_VALUE) {
+            return quickestWin;
+        }
+        return exitsAllLose && slowestLoss > 0 ? slowestLoss : 0;
+    }
+
+    /**
+     * Adds the index of every position the side that just moved could have come from without a capture or
+     * promotion. The board is left as it was.
+     */
+    private static void addPredecessors(Tablebase.Table table, ChessBoard board, ChessGame.TeamColor mover,
+                                        Positions predecessors) {
+        long occupied = board.getOccupied();
+        for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+            long pieces = board.getPieces(mover, type);
+            while (pieces != 0) {
+                int to = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                long origins;
+                if (type == ChessPiece.PieceType.PAWN) {
+                    origins = pawnOrigins(mover, to, occupied);
+                } else {
+                    origins = AttackTables.attacks(type, to, occupied) & ~occupied;
+                }
+                ChessPiece piece = ChessPiece.of(mover, type);
+                ChessPosition toPosition = Bitboards.position(to);
+                while (origins != 0) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    ChessPosition fromPosition = Bitboards.position(from);
+                    board.removePiece(toPosition);
+                    board.addPiece(fromPosition, piece);
+                    predecessors.add(table.index(board, mover, false));
+                    board.removePiece(fromPosition);
+                    board.addPiece(toPosition, piece);
+                }
+            }
+        }
+    }
+
+    //The squares a pawn now on the given square could have pushed from
+    private static long pawnOrigins(ChessGame.TeamColor color, int to, long occupied) {
+        int step = color == ChessGame.TeamColor.WHITE ? -8 : 8;
+        int startRow = color == ChessGame.TeamColor.WHITE ? 2 : 7;
+        int row = Bitboards.row(to);
+        if (row == startRow || (occupied & Bitboards.bit(to + step)) != 0) {
+            return 0L;
+        }
+        long origins = Bitboards.bit(to + step);
+        //Only a pawn now two rows up from its start could have made a double push
+        if (row == startRow + 2 * (color == ChessGame.TeamColor.WHITE ? 1 : -1)
+                && (occupied & Bitboards.bit(to + 2 * step)) == 0) {
+            origins |= Bitboards.bit(to + 2 * step);
+        }
+        return origins;
+    }
+
+    private static void schedule(Positions[] scheduled, int pass, int index) {
+        if (scheduled[pass] == null) {
+            scheduled[pass] = new Positions();
+        }
+        scheduled[pass].add(index);
+    }
+
+    private static boolean nothingScheduled(Positions[] scheduled, int fromPass) {
+        for (int pass = fromPass; pass < scheduled.length; pass++) {
+            if (scheduled[pass] != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean changesMaterial(ChessBoard board, int move) {
+        return board.getPiece(PackedMove.to(move)) != null || PackedMove.promotion(move) != null;
+    }
+
+    //Tries to resolve a position at exactly the given distance from mate
+    private int resolve(Tablebase.Table table, byte[] values, boolean[] resolved, ChessBoard board,
+                        ChessGame.TeamColor sideToMove, int plies, MoveList moves) {
+        ChessGame.TeamColor opponent = ChessGame.opposingTeam(sideToMove);
+        moves.clear();
+        MoveGenerator.generateMoves(board, sideToMove, moves);
+        boolean allLose = true;
+        int longestLoss = -1;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            boolean changesMaterial = changesMaterial(board, move);
+            board.makeMove(move);
+            if (isInCheck(board, sideToMove)) {
+                board.unmakeMove();
+                continue;
+            }
+            int child;
+            if (changesMaterial) {
+                child = finished.probeValue(board, opponent);
+                if (child < 0) {
+                    throw new IllegalStateException("Missing table for a capture or promotion from " + table);
+                }
+            } else {
+                int childIndex = table.index(board, opponent, false);
+                child = resolved[childIndex] ? values[childIndex] & 0xFF : UNRESOLVED;
+            }
+            board.unmakeMove();
+
+            if (child == UNRESOLVED || child == Tablebase.DRAW) {
+                allLose = false;
+                continue;
+            }
+            int distance = child - 1;
+            if (distance % 2 == 0) {
+                //The opponent gets mated, so we win one ply later
+                if (distance == plies - 1) {
+                    return plies + 1;
+                }
+                allLose = false;
+            } else {
+                longestLoss = Math.max(longestLoss, distance);
+            }
+        }
+        return allLose && longestLoss == plies - 1 ? plies + 1 : UNRESOLVED;
+    }
+
+    /**
+     * Puts the pieces on their squares, unless the placement is impossible
+     *
+     * @return True if the pieces were placed
+     */
+    private static boolean place(ChessBoard board, Tablebase.Table table, int[] squares) {
+        ChessPiece[] pieces = table.pieces();
+        long occupied = 0L;
+        for (int i = 0; i < squares.length; i++) {
+            long bit = Bitboards.bit(squares[i]);
+            int row = Bitboards.row(squares[i]);
+            if ((occupied & bit) != 0
+                    || (pieces[i].getPieceType() == ChessPiece.PieceType.PAWN && (row == 1 || row == 8))) {
+                return false;
+            }
+            occupied |= bit;
+        }
+        for (int i = 0; i < squares.length; i++) {
+            board.addPiece(Bitboards.position(squares[i]), pieces[i]);
+        }
+        return true;
+    }
+
+    private static void unplace(ChessBoard board, int[] squares) {
+        for (int square : squares) {
+            board.removePiece(Bitboards.position(square));
+        }
+    }
+
+    private static boolean isInCheck(ChessBoard board, ChessGame.TeamColor color) {
+        return board.isSquareAttacked(board.getKingSquare(color), ChessGame.opposingTeam(color));
+    }
+
+    private static int longestMate(byte[] values) {
+        int longest = 0;
+        for (byte value : values) {
+            int code = value & 0xFF;
+            if (code != Tablebase.ILLEGAL && code != Tablebase.DRAW) {
+                longest = Math.max(longest, code - 1);
+            }
+        }
+        return longest;
+    }
+
+    //A growable list of table indexes
+    private static final class Positions {
+        private int[] indexes = new int[16];
+        private int size;
+
+        void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size++] = index;
+        }
+
+        int get(int i) {
+            return indexes[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: TablebaseGenerator <output file> [signatures...]");
+            return;
+        }
+        List<String> signatures = args.length > 1 ? List.of(args).subList(1, args.length)
+                : allSignatures(MAX_PIECES);
+        TablebaseGenerator generator = new TablebaseGenerator(System.out);
+        generator.generate(signatures);
+        generator.write(Path.of(args[0]));
+        System.out.printf("Wrote %d tables to %s%n", generator.tables.size(), args[0]);
+    }
+}
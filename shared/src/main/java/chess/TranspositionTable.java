@@ -0,0 +1,132 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size hash table of search results keyed by {@link ChessGame#getPositionKey() position key}, safe to share
+ * between any number of search threads without locking.
+ * <p>
+ * Each entry is two longs in one flat array: the key XORed with the data, then the data. The two writes of a store
+ * aren't atomic together, so another thread can see half of one store and half of another; such an entry just fails
+ * the key check on probe and counts as a miss. The table is a cache, so losing the occasional entry is fine.
+ * <p>
+ * The data word packs, from the low bit up: 32 bits {@link PackedMove}, 20 bits signed score, 8 bits depth and
+ * 2 bits bound type.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+    //Bound types start at 1, so a stored entry is never all zeroes
+    public static final long NO_ENTRY = 0L;
+
+    private static final int ENTRY_LONGS = 2;
+    private static final int SCORE_SHIFT = 32;
+    private static final int SCORE_BITS = 20;
+    private static final int DEPTH_SHIFT = 52;
+    private static final int BOUND_SHIFT = 60;
+
+    private final long[] table;
+    private final long indexMask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param sizeMegabytes the most memory the table may use; rounded down to a power of two number of entries
+     */
+    public TranspositionTable(int sizeMegabytes) {
+        long maxEntries = Math.max(1L, (long) sizeMegabytes * 1024 * 1024 / (ENTRY_LONGS * Long.BYTES));
+        int entries = (int) Long.highestOneBit(Math.min(maxEntries, Integer.MAX_VALUE / ENTRY_LONGS));
+        this.table = new long[entries * ENTRY_LONGS];
+        this.indexMask = entries - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @return the packed entry data, or {@link #NO_ENTRY} if the position isn't stored
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = table[index + 1];
+        long check = table[index];
+        if (data != NO_ENTRY && (check ^ data) == key) {
+            hits.increment();
+            return data;
+        }
+        if (data == NO_ENTRY) {
+            misses.increment();
+        } else {
+            collisions.increment();
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores a search result. A different position always replaces what is in its slot; the same position is only
+     * replaced by a search at least as deep, or one that found a move when the stored one has none.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long existing = table[index + 1];
+        if ((table[index] ^ existing) == key && depth < depth(existing) && (move == 0 || move(existing) != 0)) {
+            return;
+        }
+        long data = (move & 0xFFFFFFFFL)
+                | ((score & ((1L << SCORE_BITS) - 1)) << SCORE_SHIFT)
+                | ((long) (depth & 0xFF) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    public static int move(long data) {
+        return (int) data;
+    }
+
+    public static int score(long data) {
+        //Shift up then arithmetic shift down to sign extend
+        return (int) (data << (64 - SCORE_SHIFT - SCORE_BITS) >> (64 - SCORE_BITS));
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+    }
+
+    public int capacity() {
+        return table.length / ENTRY_LONGS;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how many probes found a different position in the slot
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    private int index(long key) {
+        //The low bits pick the slot, the whole key is checked on probe
+        return (int) (key & indexMask) * ENTRY_LONGS;
+    }
+}
@@ -0,0 +1,56 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for each piece on its square, plus the
+ * side-to-move key when black is to move. Adding or removing a piece XORs its key in or out, so the key can be kept
+ * up to date in constant time as the board changes. ChessGame also mixes in a key for the castling rights and one
+ * for the file of the en passant square, since positions that differ in those aren't the same position.
+ * <p>
+ * The keys come from a fixed seed so a position hashes to the same value in every JVM.
+ */
+public final class Zobrist {
+    private static final long[][] PIECE_KEYS = new long[12][Bitboards.SQUARES];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    public static final long SIDE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_CE55L);
+        for (long[] pieceKeys : PIECE_KEYS) {
+            for (int square = 0; square < Bitboards.SQUARES; square++) {
+                pieceKeys[square] = random.nextLong();
+            }
+        }
+        SIDE_TO_MOVE = random.nextLong();
+        //Drawn after the others so adding them didn't change any existing key. No rights hashes to nothing
+        for (int rights = 1; rights < CASTLING_KEYS.length; rights++) {
+            CASTLING_KEYS[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT_KEYS.length; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pieceKey(ChessPiece piece, int square) {
+        return PIECE_KEYS[Bitboards.pieceIndex(piece.getTeamColor(), piece.getPieceType())][square];
+    }
+
+    /**
+     * @param rights castling rights as ChessGame's bit flags
+     */
+    public static long castlingKey(int rights) {
+        return CASTLING_KEYS[rights];
+    }
+
+    /**
+     * @param square the en passant square, whose file is what's hashed
+     */
+    public static long enPassantKey(int square) {
+        return EN_PASSANT_KEYS[square & 7];
+    }
+}
@@ -0,0 +1,82 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawRuleTests {
+    private static final ChessMove WHITE_OUT = new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null);
+    private static final ChessMove BLACK_OUT = new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null);
+    private static final ChessMove WHITE_BACK = new ChessMove(ChessPosition.of(3, 6), ChessPosition.of(1, 7), null);
+    private static final ChessMove BLACK_BACK = new ChessMove(ChessPosition.of(6, 6), ChessPosition.of(8, 7), null);
+
+    @Test
+    @DisplayName("Threefold Repetition")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        Assertions.assertFalse(game.isDrawByRepetition(), "The start position has only come up twice");
+        Assertions.assertTrue(game.isRepetition());
+
+        shuffleKnights(game);
+        Assertions.assertTrue(game.isDrawByRepetition());
+    }
+
+    @Test
+    @DisplayName("Pawn Move Resets Repetitions")
+    public void pawnMoveResetsRepetitions() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        shuffleKnights(game);
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        game.makeMove(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(5, 5), null));
+        shuffleKnights(game);
+
+        Assertions.assertEquals(4, game.getHalfmoveClock());
+        Assertions.assertFalse(game.isDrawByRepetition());
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        Assertions.assertFalse(game.isDrawByFiftyMoveRule());
+
+        game.makeMove(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(2, 1), null));
+        Assertions.assertEquals(100, game.getHalfmoveClock());
+        Assertions.assertTrue(game.isDrawByFiftyMoveRule());
+    }
+
+    @Test
+    @DisplayName("Unmake Restores Castling, En Passant and Clock")
+    public void unmakeRestoresState() {
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/3pP3/8/8/R3K2R b KQkq e3 7 20");
+        ChessGame untouched = game.copy();
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(game, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            game.unmakeMove();
+            Assertions.assertEquals(untouched, game);
+            Assertions.assertEquals(untouched.getPositionKey(), game.getPositionKey());
+            Assertions.assertEquals(7, game.getHalfmoveClock());
+        }
+    }
+
+    @Test
+    @DisplayName("Search Scores the Fifty Move Rule as a Draw")
+    public void searchSeesFiftyMoveRule() {
+        //A rook up, but every move white has ends the game in a draw
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        Assertions.assertEquals(0, new Search(new TranspositionTable(1)).search(game, SearchLimits.depth(3)).score());
+
+        game.setHalfmoveClock(0);
+        Assertions.assertTrue(new Search(new TranspositionTable(1)).search(game, SearchLimits.depth(3)).score() > 0);
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(WHITE_OUT);
+        game.makeMove(BLACK_OUT);
+        game.makeMove(WHITE_BACK);
+        game.makeMove(BLACK_BACK);
+    }
+}
@@ -0,0 +1,57 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EvaluationTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Starting Position is Even")
+    public void startIsEven() {
+        ChessBoard board = new ChessGame().getBoard();
+        Assertions.assertEquals(0, Evaluation.evaluate(board, ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(Evaluation.MAX_PHASE, board.getGamePhase());
+    }
+
+    @Test
+    @DisplayName("Mirrored Position Scores the Same for the Other Side")
+    public void mirroredPosition() {
+        ChessBoard board = ChessGame.fromFen("4k3/8/8/3q4/8/2N5/3P4/4K3 w - - 0 1").getBoard();
+        ChessBoard mirrored = ChessGame.fromFen("4k3/3p4/2n5/8/3Q4/8/8/4K3 w - - 0 1").getBoard();
+
+        Assertions.assertEquals(Evaluation.evaluate(board, ChessGame.TeamColor.WHITE),
+                Evaluation.evaluate(mirrored, ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Incremental Scores Match a Rebuilt Board")
+    public void incrementalMatchesRebuild() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        checkTree(game.getBoard(), game.getTeamTurn(), 3);
+    }
+
+    private void checkTree(ChessBoard board, ChessGame.TeamColor color, int depth) {
+        ChessBoard rebuilt = new ChessBoard();
+        for (int square = 0; square < Bitboards.SQUARES; square++) {
+            if (board.getPiece(square) != null) {
+                rebuilt.addPiece(Bitboards.position(square), board.getPiece(square));
+            }
+        }
+        Assertions.assertEquals(rebuilt.getMiddlegameScore(), board.getMiddlegameScore());
+        Assertions.assertEquals(rebuilt.getEndgameScore(), board.getEndgameScore());
+        Assertions.assertEquals(rebuilt.getGamePhase(), board.getGamePhase());
+        if (depth == 0) {
+            return;
+        }
+
+        MoveList moves = new MoveList();
+        MoveGenerator.generateLegalMoves(board, color, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            checkTree(board, ChessGame.opposingTeam(color), depth - 1);
+            board.unmakeMove();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    @Test
+    @DisplayName("Round Trips the Perft Positions")
+    public void roundTrip() {
+        for (Perft.Case perftCase : Perft.SUITE) {
+            ChessGame game = ChessGame.fromFen(perftCase.fen());
+            Assertions.assertEquals(perftCase.fen(), game.toFen());
+            Assertions.assertEquals(game, ChessGame.fromFen(game.toFen()));
+        }
+    }
+
+    @Test
+    @DisplayName("Writes the Game After Moves")
+    public void writesAfterMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(ChessGame.START_FEN, game.toFen());
+
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", game.toFen());
+        game.makeMove(new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+        game.makeMove(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(2, 5), null));
+        Assertions.assertEquals("rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 2 2", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Optional Fields Default")
+    public void optionalFields() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/4K2R w");
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/4K2R w - - 0 1", game.toFen());
+        //Extra spaces are allowed between fields
+        Assertions.assertEquals(ChessGame.START_FEN,
+                ChessGame.fromFen("  rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR   w KQkq -  0 1 ").toFen());
+    }
+
+    @Test
+    @DisplayName("Drops En Passant Squares No Pawn Could Have Made")
+    public void dropsImpossibleEnPassant() {
+        //e3 is on the wrong side for white to move, and has no black pawn in front of it
+        ChessGame wrongSide = ChessGame.fromFen("4k3/8/8/8/8/8/3PP3/4K3 w - e3 0 1");
+        Assertions.assertEquals("4k3/8/8/8/8/8/3PP3/4K3 w - - 0 1", wrongSide.toFen());
+        Assertions.assertEquals(2, wrongSide.validMoves(ChessPosition.of(2, 4)).size(),
+                "d2 should only have its pushes, not a capture on e3");
+        Assertions.assertNotNull(wrongSide.getBoard().getPiece(ChessPosition.of(2, 5)));
+
+        //Right rank, but no pawn on e5 to have just moved past e6
+        Assertions.assertEquals("4k3/8/8/3P4/8/8/8/4K3 w - - 0 1",
+                ChessGame.fromFen("4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1").toFen());
+        //The square the pawn passed through has to be empty, and so does the one it came from
+        Assertions.assertEquals("4k3/4p3/8/3Pp3/8/8/8/4K3 w - - 0 1",
+                ChessGame.fromFen("4k3/4p3/8/3Pp3/8/8/8/4K3 w - e6 0 1").toFen());
+        Assertions.assertEquals("4k3/8/4n3/3Pp3/8/8/8/4K3 w - - 0 1",
+                ChessGame.fromFen("4k3/8/4n3/3Pp3/8/8/8/4K3 w - e6 0 1").toFen());
+        //A real double push keeps its square
+        Assertions.assertEquals("4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1",
+                ChessGame.fromFen("4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1").toFen());
+        Assertions.assertEquals("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1",
+                ChessGame.fromFen("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1").toFen());
+    }
+
+    @Test
+    @DisplayName("Rejects Malformed FEN")
+    public void rejectsMalformed() {
+        String[] malformed = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        };
+        for (String fen : malformed) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("JSON Stores the Game as FEN")
+    public void jsonRoundTrip() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        //Shuffle the knights so the start position has come up twice
+        for (int i = 0; i < 2; i++) {
+            game.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+            game.makeMove(new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+            game.makeMove(new ChessMove(ChessPosition.of(3, 6), ChessPosition.of(1, 7), null));
+            game.makeMove(new ChessMove(ChessPosition.of(6, 6), ChessPosition.of(8, 7), null));
+        }
+        game.setGameState(ChessGame.GameState.FINISHED);
+
+        Gson gson = new Gson();
+        String json = gson.toJson(game);
+        Assertions.assertTrue(json.startsWith("{\"fen\":\"" + game.toFen() + "\""), json);
+        ChessGame loaded = gson.fromJson(json, ChessGame.class);
+
+        Assertions.assertEquals(game, loaded);
+        Assertions.assertEquals(game.toFen(), loaded.toFen());
+        Assertions.assertEquals(ChessGame.GameState.FINISHED, loaded.getGameState());
+        Assertions.assertTrue(loaded.isDrawByRepetition(), "The repetition history should survive a round trip");
+        Assertions.assertEquals("null", gson.toJson(null, ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("JSON Still Reads Games Saved Before FEN")
+    public void jsonReadsLegacyFormat() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        Gson gson = new Gson();
+
+        //The shape Gson gave the original game class, which only had the board's squares, the turn and the state
+        String original = String.format("{\"gameBoard\":{\"squares\":%s},\"currentTeam\":\"BLACK\","
+                + "\"currentState\":\"IN_PROGRESS\"}", legacySquares(game.getBoard()));
+        ChessGame loaded = gson.fromJson(original, ChessGame.class);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", loaded.toFen());
+
+        //Later versions also stored the castling rights and clocks, alongside fields that are now ignored
+        String later = String.format("{\"gameBoard\":{\"squares\":%s},\"currentTeam\":\"BLACK\","
+                + "\"currentState\":\"FINISHED\",\"castlingRights\":3,\"enPassantSquare\":-1,"
+                + "\"halfmoveClock\":7,\"keyHistory\":[1,2,0,0],\"historyLength\":2}",
+                legacySquares(game.getBoard()));
+        loaded = gson.fromJson(later, ChessGame.class);
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQ - 7 1", loaded.toFen());
+        Assertions.assertEquals(ChessGame.GameState.FINISHED, loaded.getGameState());
+
+        //Saving it again uses the new format
+        Assertions.assertTrue(gson.toJson(loaded).startsWith("{\"fen\":"));
+    }
+
+    private static String legacySquares(ChessBoard board) {
+        StringBuilder json = new StringBuilder("[");
+        for (int row = 1; row <= 8; row++) {
+            json.append(row > 1 ? ",[" : "[");
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
+                json.append(col > 1 ? "," : "");
+                json.append(piece == null ? "null" : String.format("{\"type\":\"%s\",\"pieceColor\":\"%s\"}",
+                        piece.getPieceType(), piece.getTeamColor()));
+            }
+            json.append("]");
+        }
+        return json.append("]").toString();
+    }
+}
@@ -0,0 +1,71 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class MovePickerTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Picks Every Move Exactly Once")
+    public void picksEveryMove() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        ChessBoard board = game.getBoard();
+        MoveList expected = new MoveList();
+        MoveGenerator.generateMoves(game, expected);
+
+        MoveOrdering ordering = new MoveOrdering();
+        //A killer that is a real quiet move here, and a hash move that is a capture
+        int killer = PackedMove.encode(Bitboards.square(1, 1), Bitboards.square(1, 2));
+        ordering.recordCutoff(board, ChessGame.TeamColor.WHITE, killer, 3, 4);
+        int hashMove = PackedMove.encode(Bitboards.square(5, 5), Bitboards.square(7, 6));
+
+        MovePicker picker = new MovePicker();
+        picker.init(game, hashMove, ordering, 3);
+        Set<Integer> picked = new HashSet<>();
+        int count = 0;
+        int move;
+        while ((move = picker.next()) != 0) {
+            if (count == 0) {
+                Assertions.assertEquals(hashMove, move, "The hash move should come first");
+            }
+            picked.add(move);
+            count++;
+        }
+
+        Assertions.assertEquals(expected.size(), count);
+        Assertions.assertEquals(expected.size(), picked.size(), "No move should be picked twice");
+    }
+
+    @Test
+    @DisplayName("Captures Come Most Valuable Victim First")
+    public void capturesInMvvLvaOrder() {
+        //The pawn on d4 can take the queen on e5 or the knight on c5
+        ChessGame game = ChessGame.fromFen("4k3/8/8/2n1q3/3P4/8/8/4K3 w - - 0 1");
+        MovePicker picker = new MovePicker();
+        picker.initCaptures(game);
+
+        Assertions.assertEquals(PackedMove.encode(Bitboards.square(4, 4), Bitboards.square(5, 5)), picker.next());
+        Assertions.assertEquals(PackedMove.encode(Bitboards.square(4, 4), Bitboards.square(5, 3)), picker.next());
+        Assertions.assertEquals(0, picker.next());
+    }
+
+    @Test
+    @DisplayName("Stale Hash Move is Ignored")
+    public void staleHashMoveIgnored() {
+        MovePicker picker = new MovePicker();
+        //A rook on a1 can't move at the start
+        picker.init(new ChessGame(),
+                PackedMove.encode(Bitboards.square(1, 1), Bitboards.square(4, 1)), new MoveOrdering(), 0);
+
+        int count = 0;
+        while (picker.next() != 0) {
+            count++;
+        }
+        Assertions.assertEquals(20, count);
+    }
+}
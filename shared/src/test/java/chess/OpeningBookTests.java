@@ -0,0 +1,78 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class OpeningBookTests {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Looks Up Weighted Moves")
+    public void lookupWeightedMoves() throws Exception {
+        OpeningBookWriter writer = new OpeningBookWriter();
+        writer.addLines(new StringReader("""
+                # Two lines through e4, one through d4
+                e2e4 e7e5 g1f3
+                e2e4 c7c5
+                d2d4 d7d5
+                """));
+        Path file = tempDir.resolve("book.bin");
+        writer.write(file);
+        OpeningBook book = OpeningBook.open(file);
+
+        List<OpeningBook.BookMove> moves = book.lookup(new ChessGame());
+        Assertions.assertEquals(List.of(
+                new OpeningBook.BookMove(move("e2e4"), 2),
+                new OpeningBook.BookMove(move("d2d4"), 1)), moves);
+
+        ChessGame game = new ChessGame();
+        game.makeMove(move("e2e4"));
+        Assertions.assertEquals(2, book.lookup(game).size());
+        game.makeMove(move("c7c5"));
+        Assertions.assertTrue(book.lookup(game).isEmpty());
+        Assertions.assertNull(book.pickMove(game, new Random(1)));
+    }
+
+    @Test
+    @DisplayName("Bundled Lines Build a Book")
+    public void bundledLines() throws Exception {
+        OpeningBookWriter writer = new OpeningBookWriter();
+        writer.addLines(new InputStreamReader(OpeningBookWriter.class.getResourceAsStream("/openings.txt"),
+                StandardCharsets.UTF_8));
+        Path file = tempDir.resolve("book.bin");
+        writer.write(file);
+        OpeningBook book = OpeningBook.open(file);
+
+        //Every book move from the start is a legal first move
+        ChessGame game = new ChessGame();
+        Random random = new Random(7);
+        for (int i = 0; i < 20; i++) {
+            ChessMove move = book.pickMove(game, random);
+            Assertions.assertNotNull(move);
+            Assertions.assertTrue(game.validMoves(move.getStartPosition()).contains(move));
+        }
+    }
+
+    @Test
+    @DisplayName("Illegal Line is Rejected")
+    public void illegalLine() {
+        OpeningBookWriter writer = new OpeningBookWriter();
+        Exception ex = Assertions.assertThrows(InvalidMoveException.class, () ->
+                writer.addLines(new StringReader("e2e4 e7e5\ne2e5\n")));
+        Assertions.assertEquals("Line 2: Illegal move e2e5", ex.getMessage());
+    }
+
+    private static ChessMove move(String coordinates) {
+        return PackedMove.toChessMove(PackedMove.fromCoordinates(coordinates));
+    }
+}
@@ -0,0 +1,67 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+public class PerftTests {
+
+    @Test
+    @DisplayName("Standard Perft Suite")
+    public void standardSuite() {
+        for (Perft.Case perftCase : Perft.SUITE) {
+            ChessGame game = ChessGame.fromFen(perftCase.fen());
+            for (int depth = 1; depth <= perftCase.expected().length; depth++) {
+                Assertions.assertEquals(perftCase.expected()[depth - 1], Perft.perft(game, depth),
+                        String.format("%s perft(%d)", perftCase.name(), depth));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Perft Leaves the Board Unchanged")
+    public void perftRestoresBoard() {
+        ChessGame game = ChessGame.fromFen(ChessGame.START_FEN);
+        ChessGame untouched = ChessGame.fromFen(ChessGame.START_FEN);
+        Perft.perft(game, 3);
+        Assertions.assertEquals(untouched, game);
+        Assertions.assertEquals(untouched.getPositionKey(), game.getPositionKey());
+    }
+
+    @Test
+    @DisplayName("Divide Sums to Perft")
+    public void divideMatchesPerft() {
+        ChessGame game = ChessGame.fromFen(ChessGame.START_FEN);
+        Map<String, Long> divide = Perft.divide(game, 3);
+        Assertions.assertEquals(20, divide.size());
+        long total = divide.values().stream().mapToLong(Long::longValue).sum();
+        Assertions.assertEquals(Perft.perft(game, 3), total);
+    }
+
+    @Test
+    @DisplayName("Parallel Perft Matches Sequential")
+    public void parallelMatchesSequential() {
+        ChessGame game = ChessGame.fromFen(ChessGame.START_FEN);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Assertions.assertEquals(Perft.perft(game, 4), ParallelPerft.perft(game, 4, pool, 2));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Copied Game is Independent")
+    public void copyIsIndependent() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessGame copy = game.copy();
+        Assertions.assertEquals(game, copy);
+
+        copy.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        Assertions.assertNotEquals(game, copy);
+        Assertions.assertEquals(new ChessGame(), game);
+    }
+}
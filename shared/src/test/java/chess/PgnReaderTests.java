@@ -0,0 +1,108 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PgnReaderTests {
+    private static final String GAMES = """
+            [Event "Casual Game"]
+            [Site "London"]
+            [White "Anderssen, Adolf"]
+            [Black "Kieseritzky, Lionel"]
+            [Result "1-0"]
+
+            1. e4 e5 2. f4 exf4 3. Bc4 Qh4+ 4. Kf1 b5 5. Bxb5 Nf6 6. Nf3 Qh6 7. d3 Nh5 8. Nh4 Qg5
+            9. Nf5 c6 10. g4 Nf6 11. Rg1 cxb5 12. h4 Qg6 13. h5 Qg5 14. Qf3 Ng8 15. Bxf4 Qf6
+            16. Nc3 Bc5 17. Nd5 Qxb2 18. Bd6 Bxg1 {18...Qxa1+ 19. Ke2 Qb2 is also lost} 19. e5 Qxa1+
+            20. Ke2 Na6 21. Nxg7+ Kd8 22. Qf6+ Nxf6 23. Be7# 1-0
+
+            [Event "Special moves"]
+            [Result "*"]
+
+            1.e4 d5 2.e5 f5 3.exf6 $1 (3. d4 {a quieter (and worse) line} fxe4) Nxf6 ; the knight takes back
+            4.Nf3 e6 5.Be2 Be7 6.O-O O-O 7.d4 c5 8.c3 cxd4 9.cxd4 Nc6 10.Nc3 a6 11.a3 b5 *
+            """;
+
+    @Test
+    @DisplayName("Reads Tags, Moves and Results")
+    public void readsGames() throws Exception {
+        List<PgnGame> games = readAll(GAMES, 4096);
+        Assertions.assertEquals(2, games.size());
+
+        PgnGame immortal = games.get(0);
+        Assertions.assertEquals("Anderssen, Adolf", immortal.tags().get("White"));
+        Assertions.assertEquals("1-0", immortal.result());
+        Assertions.assertEquals(45, immortal.moves().size());
+        ChessGame game = immortal.play();
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(ChessGame.GameState.FINISHED, game.getGameState());
+
+        PgnGame special = games.get(1);
+        Assertions.assertEquals(PgnGame.UNFINISHED, special.result());
+        Assertions.assertEquals("exf6", special.moves().get(4));
+        Assertions.assertEquals("Nxf6", special.moves().get(5), "The variation and comments should be skipped");
+        Assertions.assertEquals("r1bq1rk1/4b1pp/p1n1pn2/1p1p4/3P4/P1N2N2/1P2BPPP/R1BQ1RK1 w - - 0 12",
+                special.play().toFen());
+    }
+
+    @Test
+    @DisplayName("Games Split Across Buffer Refills")
+    public void tinyBuffer() throws Exception {
+        List<PgnGame> whole = readAll(GAMES, 4096);
+        List<PgnGame> pieces = readAll(GAMES, 7);
+        Assertions.assertEquals(whole, pieces);
+    }
+
+    @Test
+    @DisplayName("SAN Disambiguation, Promotion and En Passant")
+    public void sanMoves() throws Exception {
+        ChessGame game = ChessGame.fromFen("4k3/1P6/8/3pP3/8/8/8/R3K2R w KQ d6 0 1");
+        MoveList scratch = new MoveList();
+        Assertions.assertEquals("e5d6", PackedMove.toCoordinates(San.parse(game, "exd6", scratch)));
+        Assertions.assertEquals("b7b8n", PackedMove.toCoordinates(San.parse(game, "b8=N+", scratch)));
+        Assertions.assertEquals("b7b8q", PackedMove.toCoordinates(San.parse(game, "b8Q", scratch)));
+        Assertions.assertEquals("a1d1", PackedMove.toCoordinates(San.parse(game, "Rad1", scratch)));
+        Assertions.assertEquals("e1g1", PackedMove.toCoordinates(San.parse(game, "O-O", scratch)));
+        Assertions.assertEquals("e1c1", PackedMove.toCoordinates(San.parse(game, "0-0-0", scratch)));
+
+        ChessGame twoRooks = ChessGame.fromFen("4k3/8/8/8/8/8/4K3/R6R w - - 0 1");
+        Assertions.assertThrows(InvalidMoveException.class, () -> San.parse(twoRooks, "Rd1", scratch), "Ambiguous");
+        Assertions.assertEquals("h1d1", PackedMove.toCoordinates(San.parse(twoRooks, "Rhd1", scratch)));
+        Assertions.assertThrows(InvalidMoveException.class, () -> San.parse(game, "Nf3", scratch), "Illegal");
+        Assertions.assertThrows(InvalidMoveException.class, () -> San.parse(game, "Zz9", scratch), "Not SAN");
+    }
+
+    @Test
+    @DisplayName("Illegal Game is Rejected")
+    public void illegalGame() throws Exception {
+        PgnGame game = readAll("1. e4 e5 2. Ke3 *", 64).get(0);
+        Assertions.assertThrows(InvalidMoveException.class, game::play);
+    }
+
+    @Test
+    @DisplayName("Starts From the FEN Tag")
+    public void fenTag() throws Exception {
+        PgnGame game = readAll("[FEN \"4k3/8/8/8/8/8/8/4K2R w K - 0 1\"]\n1. O-O Kd7 *", 64).get(0);
+        Assertions.assertEquals("8/3k4/8/8/8/8/8/5RK1 w - - 2 2", game.play().toFen());
+    }
+
+    private static List<PgnGame> readAll(String pgn, int bufferSize) throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        var channel = Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8)));
+        try (PgnReader reader = new PgnReader(channel, StandardCharsets.UTF_8, bufferSize)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+}
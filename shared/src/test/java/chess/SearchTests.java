@@ -0,0 +1,71 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Mate in One")
+    public void findsMateInOne() {
+        //Back rank mate: Ra1-a8
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null),
+                result.bestMove());
+        Assertions.assertTrue(Search.isMateScore(result.score()));
+    }
+
+    @Test
+    @DisplayName("Wins Hanging Queen")
+    public void winsHangingQueen() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(5, 4), null),
+                result.bestMove());
+    }
+
+    @Test
+    @DisplayName("Time Limited Search Returns a Legal Move")
+    public void timeLimitedSearch() {
+        ChessGame game = new ChessGame();
+        SearchResult result = new Search().search(game, SearchLimits.time(200));
+
+        Assertions.assertTrue(result.depth() >= 1);
+        Assertions.assertTrue(game.validMoves(result.bestMove().getStartPosition()).contains(result.bestMove()));
+        Assertions.assertEquals(new ChessGame(), game, "Search should not modify the game it was given");
+    }
+
+    @Test
+    @DisplayName("No Move When Checkmated")
+    public void noMoveWhenCheckmated() {
+        ChessGame game = ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        SearchResult result = new Search().search(game, SearchLimits.depth(2));
+
+        Assertions.assertNull(result.bestMove());
+        Assertions.assertEquals(-Search.MATE_SCORE, result.score());
+    }
+
+    @Test
+    @DisplayName("Lazy SMP Finds Mate in One")
+    public void lazySmpFindsMate() {
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            SearchResult result = new LazySmpSearch(new TranspositionTable(4), pool)
+                    .search(game, SearchLimits.depth(4).withThreads(4));
+
+            Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null),
+                    result.bestMove());
+            Assertions.assertTrue(Search.isMateScore(result.score()));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+public class TablebaseTests {
+    private static Tablebase tablebase;
+
+    @BeforeAll
+    public static void generate(@TempDir Path tempDir) throws Exception {
+        //KPK needs every other three piece table for its promotions
+        TablebaseGenerator generator = new TablebaseGenerator(null);
+        generator.generate(List.of("KPK"));
+        Path file = tempDir.resolve("tablebase.bin");
+        generator.write(file);
+        tablebase = Tablebase.open(file);
+    }
+
+    @Test
+    @DisplayName("Tables Needed by Captures and Promotions")
+    public void dependencies() {
+        Assertions.assertEquals(List.of("KQK", "KRK", "KBK", "KNK", "KPK"),
+                TablebaseGenerator.withDependencies(List.of("KPK")));
+        Assertions.assertTrue(TablebaseGenerator.withDependencies(List.of("KRKP")).containsAll(
+                List.of("KRK", "KPK", "KQKR", "KRKR", "KRKB", "KRKN")));
+        Assertions.assertEquals(35, TablebaseGenerator.allSignatures(4).size());
+    }
+
+    @Test
+    @DisplayName("Probes Wins, Losses and Draws")
+    public void probe() {
+        Assertions.assertEquals(Tablebase.Outcome.WIN, probe("8/8/8/4k3/8/8/8/KQ6 w - - 0 1").outcome());
+        Assertions.assertEquals(Tablebase.Outcome.LOSS, probe("8/8/8/4k3/8/8/8/KQ6 b - - 0 1").outcome());
+        Assertions.assertEquals(Tablebase.Outcome.WIN, probe("8/8/8/4k3/8/8/8/KR6 w - - 0 1").outcome());
+        Assertions.assertEquals(Tablebase.Outcome.DRAW, probe("8/8/8/4k3/8/8/8/KN6 w - - 0 1").outcome());
+        Assertions.assertEquals(Tablebase.Outcome.DRAW, probe("8/8/8/4k3/8/8/8/K7 w - - 0 1").outcome());
+        //A rook pawn can't win against a king in the corner
+        Assertions.assertEquals(Tablebase.Outcome.DRAW, probe("k7/8/8/8/8/8/P7/K7 w - - 0 1").outcome());
+        //Positions the tablebase doesn't cover
+        Assertions.assertNull(probe("8/8/8/4k3/8/8/8/KQQ5 w - - 0 1"));
+        Assertions.assertNull(probe(ChessGame.START_FEN));
+    }
+
+    @Test
+    @DisplayName("Exact Distance to Mate")
+    public void distanceToMate() {
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.LOSS, 0),
+                probe("k7/1Q6/1K6/8/8/8/8/8 b - - 0 1"));
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.WIN, 1),
+                probe("k7/7Q/1K6/8/8/8/8/8 w - - 0 1"));
+        //The same position mirrored and with the colours swapped
+        Assertions.assertEquals(new Tablebase.Result(Tablebase.Outcome.WIN, 1),
+                probe("8/8/8/8/8/6k1/q7/7K b - - 0 1"));
+    }
+
+    @Test
+    @DisplayName("Every Value Follows From Its Moves")
+    public void consistentWithMoves() {
+        Tablebase.Table table = new Tablebase.Table("KPK");
+        int[] squares = new int[table.pieceCount()];
+        MoveList moves = new MoveList();
+        int checked = 0;
+        for (int index = 0; index < table.size(); index++) {
+            ChessGame.TeamColor sideToMove = table.decode(index, squares) ? ChessGame.TeamColor.WHITE
+                    : ChessGame.TeamColor.BLACK;
+            ChessBoard board = new ChessBoard();
+            for (int i = 0; i < squares.length; i++) {
+                board.addPiece(Bitboards.position(squares[i]), table.pieces()[i]);
+            }
+            if (Long.bitCount(board.getOccupied()) != squares.length
+                    || table.index(board, sideToMove, false) != index) {
+                continue;
+            }
+            int value = tablebase.probeValue(board, sideToMove);
+            if (value == Tablebase.ILLEGAL) {
+                continue;
+            }
+            Assertions.assertEquals(expectedValue(board, sideToMove, moves), value,
+                    "Wrong value for index " + index);
+            checked++;
+        }
+        Assertions.assertTrue(checked > 100_000);
+    }
+
+    @Test
+    @DisplayName("Positions Where En Passant is Possible aren't Probed")
+    public void skipsEnPassant() throws InvalidMoveException {
+        //Stands in for the real KPKP table, which calls this position a draw as if exf6 weren't possible
+        Tablebase.Table kpkp = new Tablebase.Table("KPKP");
+        Tablebase drawn = new Tablebase();
+        drawn.add(kpkp, ByteBuffer.allocate(kpkp.size()));
+
+        ChessGame game = ChessGame.fromFen("8/8/8/4Pp2/8/8/8/K2k4 w - f6 0 1");
+        Assertions.assertEquals(Tablebase.Outcome.DRAW, drawn.probe(game.getBoard(), game.getTeamTurn()).outcome());
+        Assertions.assertNull(drawn.probe(game));
+        Assertions.assertFalse(Tablebase.isCovered(game));
+        Assertions.assertFalse(Tablebase.isCovered(ChessGame.fromFen("8/8/8/4k3/8/8/8/R3K3 w Q - 0 1")));
+
+        //Once the capture is made there's nothing left the tables don't know about
+        game.makeMove(new ChessMove(new ChessPosition(5, 5), new ChessPosition(6, 6), null));
+        Assertions.assertEquals(Tablebase.Outcome.LOSS, tablebase.probe(game).outcome());
+    }
+
+    @Test
+    @DisplayName("Search Scores Tablebase Wins as Mate")
+    public void searchUsesTablebase() {
+        ChessGame game = ChessGame.fromFen("8/8/8/4k3/8/8/8/KR6 w - - 0 1");
+        SearchResult result = new Search(new TranspositionTable(1), tablebase).search(game, SearchLimits.depth(2));
+
+        Assertions.assertTrue(Search.isMateScore(result.score()));
+        Assertions.assertTrue(result.score() > 0);
+    }
+
+    private static Tablebase.Result probe(String fen) {
+        ChessGame game = ChessGame.fromFen(fen);
+        return tablebase.probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    //Works a position's value out from the values of the positions its moves lead to
+    private static int expectedValue(ChessBoard board, ChessGame.TeamColor sideToMove, MoveList moves) {
+        moves.clear();
+        MoveGenerator.generateLegalMoves(board, sideToMove, moves);
+        if (moves.isEmpty()) {
+            boolean inCheck = board.isSquareAttacked(board.getKingSquare(sideToMove),
+                    ChessGame.opposingTeam(sideToMove));
+            return inCheck ? 1 : Tablebase.DRAW;
+        }
+        int quickestWin = Integer.MAX_VALUE;
+        int slowestLoss = 0;
+        boolean allLose = true;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            int child = tablebase.probeValue(board, ChessGame.opposingTeam(sideToMove));
+            board.unmakeMove();
+            if (child == Tablebase.DRAW) {
+                allLose = false;
+            } else if ((child - 1) % 2 == 0) {
+                quickestWin = Math.min(quickestWin, child + 1);
+                allLose = false;
+            } else {
+                slowestLoss = Math.max(slowestLoss, child + 1);
+            }
+        }
+        if (quickestWin != Integer.MAX_VALUE) {
+            return quickestWin;
+        }
+        return allLose ? slowestLoss : Tablebase.DRAW;
+    }
+}
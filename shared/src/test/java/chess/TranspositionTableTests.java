@@ -0,0 +1,66 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTests {
+
+    @Test
+    @DisplayName("Stored Entry Round Trips")
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = PackedMove.encode(Bitboards.square(7, 5), Bitboards.square(8, 5), ChessPiece.PieceType.QUEEN);
+        long key = new ChessGame().getPositionKey();
+
+        table.store(key, move, -Search.MATE_SCORE + 3, 12, TranspositionTable.LOWER_BOUND);
+        long entry = table.probe(key);
+
+        Assertions.assertEquals(move, TranspositionTable.move(entry));
+        Assertions.assertEquals(-Search.MATE_SCORE + 3, TranspositionTable.score(entry));
+        Assertions.assertEquals(12, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.bound(entry));
+        Assertions.assertEquals(1, table.getHits());
+    }
+
+    @Test
+    @DisplayName("Different Position in the Same Slot is a Collision")
+    public void collision() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        //Same low bits, so the same slot
+        long otherKey = key ^ (1L << 62);
+
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(key));
+        table.store(key, 0, 50, 4, TranspositionTable.EXACT);
+
+        Assertions.assertEquals(TranspositionTable.NO_ENTRY, table.probe(otherKey));
+        Assertions.assertEquals(1, table.getMisses());
+        Assertions.assertEquals(1, table.getCollisions());
+    }
+
+    @Test
+    @DisplayName("Shallower Search Does Not Replace Deeper Entry")
+    public void depthPreferred() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42L;
+        table.store(key, 0, 10, 6, TranspositionTable.EXACT);
+        table.store(key, 0, 20, 2, TranspositionTable.EXACT);
+
+        Assertions.assertEquals(10, TranspositionTable.score(table.probe(key)));
+    }
+
+    @Test
+    @DisplayName("Shared Table Gives the Same Result")
+    public void sharedTableSearch() {
+        TranspositionTable table = new TranspositionTable(4);
+        ChessGame game = ChessGame.fromFen("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+
+        SearchResult first = new Search(table).search(game, SearchLimits.depth(4));
+        SearchResult second = new Search(table).search(game, SearchLimits.depth(4));
+
+        Assertions.assertEquals(first.bestMove(), second.bestMove());
+        Assertions.assertEquals(first.score(), second.score());
+        Assertions.assertTrue(table.getHits() > 0);
+    }
+}
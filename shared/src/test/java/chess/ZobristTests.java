@@ -0,0 +1,72 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Unmake Restores Position Key")
+    public void unmakeRestoresKey() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        long startKey = board.getZobristKey();
+
+        board.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        Assertions.assertNotEquals(startKey, board.getZobristKey());
+        board.unmakeMove();
+        Assertions.assertEquals(startKey, board.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Transpositions Share a Key")
+    public void transpositionsShareKey() throws InvalidMoveException {
+        ChessGame first = new ChessGame();
+        first.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+        first.makeMove(new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+        first.makeMove(new ChessMove(ChessPosition.of(1, 2), ChessPosition.of(3, 3), null));
+
+        ChessGame second = new ChessGame();
+        second.makeMove(new ChessMove(ChessPosition.of(1, 2), ChessPosition.of(3, 3), null));
+        second.makeMove(new ChessMove(ChessPosition.of(8, 7), ChessPosition.of(6, 6), null));
+        second.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(3, 6), null));
+
+        Assertions.assertEquals(first.getPositionKey(), second.getPositionKey());
+        Assertions.assertEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Side to Move Changes Key")
+    public void sideToMoveChangesKey() {
+        ChessGame game = new ChessGame();
+        long whiteKey = game.getPositionKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(whiteKey ^ Zobrist.SIDE_TO_MOVE, game.getPositionKey());
+    }
+
+    @Test
+    @DisplayName("Lost Castling Rights Change Key")
+    public void castlingRightsChangeKey() throws InvalidMoveException {
+        //The rook goes out and back, so the pieces end up where they started but white can't castle kingside
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        long startKey = game.getPositionKey();
+        game.makeMove(new ChessMove(ChessPosition.of(1, 8), ChessPosition.of(1, 7), null));
+        game.makeMove(new ChessMove(ChessPosition.of(8, 1), ChessPosition.of(8, 2), null));
+        game.makeMove(new ChessMove(ChessPosition.of(1, 7), ChessPosition.of(1, 8), null));
+        game.makeMove(new ChessMove(ChessPosition.of(8, 2), ChessPosition.of(8, 1), null));
+
+        Assertions.assertEquals(ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w Qk - 4 3").getPositionKey(), game.getPositionKey());
+        Assertions.assertNotEquals(startKey, game.getPositionKey());
+    }
+
+    @Test
+    @DisplayName("En Passant Square Changes Key Only When a Capture is Possible")
+    public void enPassantChangesKey() {
+        long withCapture = ChessGame.fromFen("4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1").getPositionKey();
+        Assertions.assertNotEquals(ChessGame.fromFen("4k3/8/8/8/3pP3/8/8/4K3 b - - 0 1").getPositionKey(), withCapture);
+        //No black pawn is next to the e-pawn, so the square is dropped
+        Assertions.assertEquals(ChessGame.fromFen("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1").getPositionKey(),
+                ChessGame.fromFen("4k3/8/8/8/4P3/8/8/4K3 b - e3 0 1").getPositionKey());
+    }
+}